@@ -16,8 +16,9 @@
  */
 package org.jboss.as.quickstarts.datagrid.carmart.jsf;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Logger;
 import javax.faces.application.Application;
 import javax.faces.event.AbortProcessingException;
@@ -25,11 +26,9 @@ import javax.faces.event.SystemEvent;
 import javax.faces.event.SystemEventListener;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
-import javax.transaction.UserTransaction;
+import javax.transaction.TransactionManager;
+import org.infinispan.CacheImpl;
 import org.infinispan.api.BasicCache;
-import org.jboss.as.quickstarts.datagrid.carmart.model.Car;
-import org.jboss.as.quickstarts.datagrid.carmart.model.Car.CarType;
-import org.jboss.as.quickstarts.datagrid.carmart.model.Car.Country;
 import org.jboss.as.quickstarts.datagrid.carmart.session.CacheContainerProvider;
 import org.jboss.as.quickstarts.datagrid.carmart.session.CarManager;
 
@@ -38,62 +37,87 @@ import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
 
 /**
- * Populates a cache with initial data. We need to obtain BeanManager from JNDI and create an instance of CacheContainerProvider
- * manually since injection into Listeners is not supported by CDI specification.
+ * Populates a cache with initial data read from the file configured in META-INF/import.properties. We need to obtain
+ * BeanManager from JNDI and create an instance of CacheContainerProvider manually since injection into Listeners is not
+ * supported by CDI specification.
  * 
  * @author Martin Gencur
  * 
  */
 public class PopulateCache implements SystemEventListener {
 
+    public static final String IMPORT_PROPERTIES_FILE = "META-INF/import.properties";
+    public static final String IMPORT_FILE = "carmart.import.file";
+    public static final String IMPORT_BATCH_SIZE = "carmart.import.batch.size";
+    public static final String IMPORT_THREADS = "carmart.import.threads";
+    public static final String IMPORT_PROGRESS_INTERVAL = "carmart.import.progress.interval";
+
     private Logger log = Logger.getLogger(this.getClass().getName());
 
     private CacheContainerProvider provider;
 
-    private UserTransaction utx;
+    private ImportExecutor importExecutor;
 
     @Override
     public void processEvent(SystemEvent event) throws AbortProcessingException {
-        provider = getContextualInstance(getBeanManagerFromJNDI(), CacheContainerProvider.class);
+        BeanManager beanManager = getBeanManagerFromJNDI();
+        provider = getContextualInstance(beanManager, CacheContainerProvider.class);
+        importExecutor = getContextualInstance(beanManager, ImportExecutor.class);
         startup();
     }
 
+    /**
+     * Starts the import of the cars in the background so that the application start is not held up.
+     */
     public void startup() {
-        BasicCache<String, Object> cars = provider.getCacheContainer().getCache(CarManager.CACHE_NAME);
-        List<String> carNumbers = new ArrayList<String>();
-
-        utx = getUserTransactionFromJNDI();
-
-        try {
-            utx.begin();
-            Car c = new Car("Ford Focus", 1.6, CarType.COMBI, "white", "FML 23-25", Country.CZECH_REPUBLIC);
-            carNumbers.add(c.getNumberPlate());
-            cars.put(CarManager.encode(c.getNumberPlate()), c);
-            c = new Car("BMW X3", 2.0, CarType.SEDAN, "gray", "1P3 2632", Country.CZECH_REPUBLIC);
-            carNumbers.add(c.getNumberPlate());
-            cars.put(CarManager.encode(c.getNumberPlate()), c);
-            c = new Car("Ford Mondeo", 2.2, CarType.COMBI, "blue", "1B2 1111", Country.USA);
-            carNumbers.add(c.getNumberPlate());
-            cars.put(CarManager.encode(c.getNumberPlate()), c);
-            c = new Car("Mazda MX-5", 1.8, CarType.CABRIO, "red", "6T4 2526", Country.USA);
-            carNumbers.add(c.getNumberPlate());
-            cars.put(CarManager.encode(c.getNumberPlate()), c);
-            c = new Car("VW Golf", 1.6, CarType.HATCHBACK, "yellow", "2B2 4946", Country.GERMANY);
-            carNumbers.add(c.getNumberPlate());
-            cars.put(CarManager.encode(c.getNumberPlate()), c);
-            // insert a list of cars' number plates
-            cars.put(CarManager.CAR_NUMBERS_KEY, carNumbers);
-            utx.commit();
-            log.info("Successfully imported data!");
-        } catch (Exception e) {
-            log.warning("An exception occured while populating the database! Rolling back the transaction.");
-            if (utx != null) {
+        final BasicCache<String, Object> cars = provider.getCacheContainer().getCache(CarManager.CACHE_NAME);
+        // the import runs on threads of its own, which use the transaction manager rather than a UserTransaction
+        final TransactionManager tm = ((CacheImpl) cars).getAdvancedCache().getTransactionManager();
+        final Properties config = loadImportProperties();
+        if (importExecutor == null) {
+            log.warning("The import executor could not be found, no cars are imported");
+            return;
+        }
+        final ExecutorService executor = importExecutor.getExecutor();
+        executor.submit(new Runnable() {
+            public void run() {
+                String file = importProperty(config, IMPORT_FILE);
+                CarImporter importer = new CarImporter(cars, tm, executor, Integer.parseInt(importProperty(config,
+                        IMPORT_BATCH_SIZE)), Integer.parseInt(importProperty(config, IMPORT_THREADS)),
+                        Integer.parseInt(importProperty(config, IMPORT_PROGRESS_INTERVAL)));
+                CarRecordReader records = null;
                 try {
-                    utx.rollback();
-                } catch (Exception e1) {
+                    log.info("Importing cars from " + file);
+                    records = CarRecordReader.open(file);
+                    importer.importCars(records);
+                    log.info("Successfully imported data!");
+                } catch (Exception e) {
+                    log.warning("An exception occured while populating the database! " + e.getMessage());
+                } finally {
+                    if (records != null) {
+                        try {
+                            records.close();
+                        } catch (IOException e) {
+                        }
+                    }
                 }
             }
+        });
+    }
+
+    private Properties loadImportProperties() {
+        Properties props = new Properties();
+        try {
+            props.load(this.getClass().getClassLoader().getResourceAsStream(IMPORT_PROPERTIES_FILE));
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
         }
+        return props;
+    }
+
+    // a system property of the same name takes precedence, e.g. -Dcarmart.import.file=/data/cars.csv
+    private static String importProperty(Properties config, String name) {
+        return System.getProperty(name, config.getProperty(name));
     }
 
     private BeanManager getBeanManagerFromJNDI() {
@@ -109,18 +133,6 @@ public class PopulateCache implements SystemEventListener {
         return (BeanManager) result;
     }
 
-    private UserTransaction getUserTransactionFromJNDI() {
-        InitialContext context;
-        Object result;
-        try {
-            context = new InitialContext();
-            result = context.lookup("java:comp/UserTransaction"); // lookup in JBossAS
-        } catch (NamingException ex) {
-            throw new RuntimeException("UserTransaction could not be found in JNDI", ex);
-        }
-        return (UserTransaction) result;
-    }
-
     @SuppressWarnings("unchecked")
     public <T> T getContextualInstance(final BeanManager manager, final Class<T> type) {
         T result = null;
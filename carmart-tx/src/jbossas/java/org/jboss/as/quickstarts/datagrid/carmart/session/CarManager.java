@@ -21,12 +21,12 @@ import org.jboss.as.quickstarts.datagrid.carmart.model.Car;
 import org.jboss.as.quickstarts.datagrid.carmart.session.CacheContainerProvider;
 
 import javax.enterprise.inject.Model;
+import javax.faces.context.FacesContext;
 import javax.inject.Inject;
 import javax.transaction.UserTransaction;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -45,6 +45,10 @@ public class CarManager {
 
     public static final String CAR_NUMBERS_KEY = "carnumbers";
 
+    public static final String CURSOR_PARAM = "cursor";
+
+    public static final int PAGE_SIZE = 20;
+
     @Inject
     private CacheContainerProvider provider;
 
@@ -57,6 +61,9 @@ public class CarManager {
 
     private BasicCache<String, Object> carCache;
 
+    private List<String> carList;
+    private String nextCursor;
+
     private String carId;
     private Car car = new Car();
 
@@ -67,9 +74,7 @@ public class CarManager {
         carCache = provider.getCacheContainer().getCache(CACHE_NAME);
         try {
             utx.begin();
-            List<String> carNumbers = getNumberPlateList(carCache);
-            carNumbers.add(car.getNumberPlate());
-            carCache.put(CAR_NUMBERS_KEY, carNumbers);
+            getNumberPlateIndex(carCache).add(car.getNumberPlate());
             carCache.put(CarManager.encode(car.getNumberPlate()), car);
             utx.commit();
         } catch (Exception e) {
@@ -88,11 +93,9 @@ public class CarManager {
         carCache = provider.getCacheContainer().getCache(CACHE_NAME);
         try {
             utx.begin();
-            List<String> carNumbers = getNumberPlateList(carCache);
-            carNumbers.add(car.getNumberPlate());
-            // store the new list of car numbers and then throw an exception -> roll-back
-            // the car number list should not be stored in the cache
-            carCache.put(CAR_NUMBERS_KEY, carNumbers);
+            // index the new car number and then throw an exception -> roll-back
+            // the car number should not be stored in the cache
+            getNumberPlateIndex(carCache).add(car.getNumberPlate());
             if (throwInducedException)
                 throw new RuntimeException("Induced exception");
             carCache.put(CarManager.encode(car.getNumberPlate()), car);
@@ -109,56 +112,31 @@ public class CarManager {
         return "home";
     }
 
-    /**
-     * Operate on a clone of car number list so that we can demonstrate transaction roll-back.
-     */
-    @SuppressWarnings("unchecked")
-    private List<String> getNumberPlateList(BasicCache<String, Object> carCacheLoc) {
-        List<String> result = null;
-        List<String> carNumberList = (List<String>) carCacheLoc.get(CAR_NUMBERS_KEY);
-        if (carNumberList == null) {
-            result = new LinkedList<String>();
-        } else {
-            result = new LinkedList<String>(carNumberList);
-        }
-        return result;
+    private NumberPlateIndex getNumberPlateIndex(BasicCache<String, Object> carCacheLoc) {
+        return new NumberPlateIndex(carCacheLoc, CAR_NUMBERS_KEY);
     }
 
     public String showCarDetails(String numberPlate) {
         carCache = provider.getCacheContainer().getCache(CACHE_NAME);
-        try {
-            utx.begin();
-            this.car = (Car) carCache.get(encode(numberPlate));
-            utx.commit();
-        } catch (Exception e) {
-            if (utx != null) {
-                try {
-                    utx.rollback();
-                } catch (Exception e1) {
-                }
-            }
-        }
+        // pure reads do not begin a transaction, outside of one the cache returns the last committed
+        // value without enlisting in the transaction manager
+        this.car = (Car) carCache.get(encode(numberPlate));
         return "showdetails";
     }
 
+    /**
+     * Returns the page of number plates following the cursor passed as a request parameter.
+     */
     public List<String> getCarList() {
-        List<String> result = null;
-        try {
-            utx.begin();
+        if (carList == null) {
             // retrieve a cache
             carCache = provider.getCacheContainer().getCache(CACHE_NAME);
-            // retrieve a list of number plates from the cache
-            result = getNumberPlateList(carCache);
-            utx.commit();
-        } catch (Exception e) {
-            if (utx != null) {
-                try {
-                    utx.rollback();
-                } catch (Exception e1) {
-                }
-            }
+            // retrieve one page of number plates from the cache, no transaction is needed for reading
+            NumberPlateIndex.Page page = getNumberPlateIndex(carCache).page(getCursor(), PAGE_SIZE);
+            carList = page.getNumberPlates();
+            nextCursor = page.getNextCursor();
         }
-        return result;
+        return carList;
     }
 
     public String removeCar(String numberPlate) {
@@ -166,9 +144,7 @@ public class CarManager {
         try {
             utx.begin();
             carCache.remove(encode(numberPlate));
-            List<String> carNumbers = getNumberPlateList(carCache);
-            carNumbers.remove(numberPlate);
-            carCache.put(CAR_NUMBERS_KEY, carNumbers);
+            getNumberPlateIndex(carCache).remove(numberPlate);
             utx.commit();
         } catch (Exception e) {
             if (utx != null) {
@@ -178,9 +154,19 @@ public class CarManager {
                 }
             }
         }
+        carList = null;
         return null;
     }
 
+    public String getCursor() {
+        return FacesContext.getCurrentInstance().getExternalContext().getRequestParameterMap().get(CURSOR_PARAM);
+    }
+
+    public String getNextCursor() {
+        getCarList();
+        return nextCursor;
+    }
+
     public void setCarId(String carId) {
         this.carId = carId;
     }
@@ -0,0 +1,198 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.jsf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.transaction.TransactionManager;
+
+import org.infinispan.api.BasicCache;
+import org.jboss.as.quickstarts.datagrid.carmart.model.Car;
+import org.jboss.as.quickstarts.datagrid.carmart.session.CarManager;
+import org.jboss.as.quickstarts.datagrid.carmart.session.NumberPlateIndex;
+
+/**
+ * Writes cars into the cache in batches, using several threads in parallel. Every batch is written in a transaction of
+ * its own. The number plate index is updated once all batches have been written, with a single write per index bucket.
+ * <p>
+ * Records that are not valid cars, and batches that cannot be written, are counted as failed and the import goes on.
+ * Whatever stops the import, the cars written until then are added to the index.
+ * </p>
+ */
+public class CarImporter {
+
+    private Logger log = Logger.getLogger(this.getClass().getName());
+
+    private final BasicCache<String, Object> cars;
+    private final TransactionManager tm;
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final int threads;
+    private final int progressInterval;
+
+    private final AtomicInteger imported = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public CarImporter(BasicCache<String, Object> cars, TransactionManager tm, ExecutorService executor, int batchSize,
+            int threads, int progressInterval) {
+        if (batchSize < 1 || threads < 1) {
+            throw new IllegalArgumentException("The batch size and the number of threads must be positive");
+        }
+        this.cars = cars;
+        this.tm = tm;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.threads = threads;
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * @return the number of cars imported
+     */
+    public int importCars(CarRecordReader records) {
+        final long start = System.nanoTime();
+        final List<String> numberPlates = Collections.synchronizedList(new ArrayList<String>());
+        // at most this many batches are written at the same time, and the records are not read further ahead
+        final Semaphore writers = new Semaphore(threads);
+        List<Future<?>> batches = new ArrayList<Future<?>>();
+        try {
+            while (records.hasNext()) {
+                // keys are encoded once here and reused for the cache and the index
+                final Map<String, Car> batch = new HashMap<String, Car>(batchSize * 4 / 3 + 1);
+                while (batch.size() < batchSize && records.hasNext()) {
+                    Car car = records.next();
+                    batch.put(CarManager.encode(car.getNumberPlate()), car);
+                }
+                writers.acquire();
+                batches.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        try {
+                            writeBatch(batch);
+                            for (Car car : batch.values()) {
+                                numberPlates.add(car.getNumberPlate());
+                            }
+                            reportProgress(imported.addAndGet(batch.size()), batch.size(), start);
+                        } catch (Exception e) {
+                            failed.addAndGet(batch.size());
+                            log.warning("Could not import a batch of " + batch.size() + " cars: " + e.getMessage());
+                        } finally {
+                            writers.release();
+                        }
+                        return null;
+                    }
+                }));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warning("The import was interrupted");
+        } finally {
+            // the cars written so far are indexed, whatever stopped the import
+            awaitAll(batches);
+            failed.addAndGet(records.getInvalid());
+            writeIndex(numberPlates);
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Imported " + imported.get() + " cars in " + millis + " ms (" + throughput(imported.get(), millis)
+                + " cars/s), " + failed.get() + " failed");
+        return imported.get();
+    }
+
+    public int getImported() {
+        return imported.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    protected void writeBatch(Map<String, Car> batch) throws Exception {
+        // the transaction manager binds transactions to the calling thread, each writer runs its own
+        tm.begin();
+        try {
+            cars.putAll(batch);
+            tm.commit();
+        } catch (Exception e) {
+            rollback();
+            throw e;
+        }
+    }
+
+    protected void writeIndex(List<String> numberPlates) {
+        try {
+            tm.begin();
+            NumberPlateIndex index = new NumberPlateIndex(cars, CarManager.CAR_NUMBERS_KEY);
+            // move over a list left by an older version
+            index.migrate(CarManager.CAR_NUMBERS_KEY);
+            index.addAll(numberPlates);
+            tm.commit();
+        } catch (Exception e) {
+            rollback();
+            throw new RuntimeException("Could not update the number plate index", e);
+        }
+    }
+
+    private void rollback() {
+        try {
+            tm.rollback();
+        } catch (Exception e) {
+            log.warning("Could not roll back the import transaction: " + e.getMessage());
+        }
+    }
+
+    // the batches catch their own failures, so only an interruption can keep them from being waited for
+    private static void awaitAll(List<Future<?>> batches) {
+        boolean interrupted = false;
+        for (Future<?> batch : batches) {
+            while (true) {
+                try {
+                    batch.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void reportProgress(int total, int added, long start) {
+        if (progressInterval > 0 && total / progressInterval != (total - added) / progressInterval) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.info("Imported " + total + " cars so far (" + throughput(total, millis) + " cars/s)");
+        }
+    }
+
+    private static long throughput(int count, long millis) {
+        return millis == 0 ? count : count * 1000L / millis;
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.jsf;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.logging.Logger;
+
+import org.jboss.as.quickstarts.datagrid.carmart.model.Car;
+import org.jboss.as.quickstarts.datagrid.carmart.model.Car.CarType;
+import org.jboss.as.quickstarts.datagrid.carmart.model.Car.Country;
+
+/**
+ * Reads car records one at a time from a CSV or JSON file, so that large files never have to be held in memory.
+ * <p>
+ * A CSV file starts with a header line naming the columns (brand, displacement, type, color, numberPlate, country);
+ * lines starting with # are ignored. A JSON file holds an array of flat objects with the same property names.
+ * </p>
+ * <p>
+ * Records that are not valid cars are skipped and counted, see {@link #getInvalid()}. If the file itself cannot be read
+ * any further, the cars read until then are returned and the rest of the file is skipped.
+ * </p>
+ */
+public abstract class CarRecordReader implements Iterator<Car>, Closeable {
+
+    // the number of invalid records that are logged one by one, the others are only counted
+    private static final int MAX_LOGGED_INVALID = 10;
+
+    private Logger log = Logger.getLogger(this.getClass().getName());
+
+    private final LineNumberReader reader;
+
+    private Car next;
+
+    private boolean finished;
+
+    private int records;
+
+    private int invalid;
+
+    protected CarRecordReader(Reader reader) {
+        this.reader = reader instanceof LineNumberReader ? (LineNumberReader) reader : new LineNumberReader(reader);
+    }
+
+    /**
+     * Opens a file on the file system, or a classpath resource if no such file exists. The format is chosen by the
+     * extension.
+     */
+    public static CarRecordReader open(String location) throws IOException {
+        InputStream in;
+        File file = new File(location);
+        if (file.isFile()) {
+            in = new FileInputStream(file);
+        } else {
+            in = CarRecordReader.class.getClassLoader().getResourceAsStream(location);
+            if (in == null) {
+                throw new IOException("Car file " + location + " not found");
+            }
+        }
+        Reader reader = new LineNumberReader(new InputStreamReader(in, "UTF-8"));
+        if (location.toLowerCase().endsWith(".json")) {
+            return new JsonReader(reader);
+        }
+        return new CsvReader(reader);
+    }
+
+    /**
+     * @return the next record as property name/value pairs, or null at the end of the file
+     */
+    protected abstract Map<String, String> readRecord(Reader reader) throws IOException;
+
+    public boolean hasNext() {
+        while (next == null && !finished) {
+            Map<String, String> record = null;
+            try {
+                record = readRecord(reader);
+            } catch (IOException e) {
+                log.warning("Could not read car record " + (records + 1) + " at line " + (reader.getLineNumber() + 1)
+                        + ", the rest of the file is skipped: " + e.getMessage());
+            }
+            if (record == null) {
+                finished = true;
+            } else {
+                records++;
+                next = toCar(record);
+            }
+        }
+        return next != null;
+    }
+
+    /**
+     * @return the number of records skipped because they are not valid cars
+     */
+    public int getInvalid() {
+        return invalid;
+    }
+
+    public Car next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Car car = next;
+        next = null;
+        return car;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // returns null for a record that is not a valid car
+    private Car toCar(Map<String, String> record) {
+        try {
+            String numberPlate = record.get("numberPlate");
+            if (numberPlate == null || numberPlate.length() == 0) {
+                throw new IllegalArgumentException("no number plate");
+            }
+            return new Car(record.get("brand"), Double.parseDouble(record.get("displacement")), CarType.valueOf(record
+                    .get("type")), record.get("color"), numberPlate, Country.valueOf(record.get("country")));
+        } catch (RuntimeException e) {
+            if (++invalid <= MAX_LOGGED_INVALID) {
+                log.warning("Skipping invalid car record " + records + ": " + record + " (" + e + ")");
+            }
+            return null;
+        }
+    }
+
+    private static class CsvReader extends CarRecordReader {
+
+        private String[] header;
+
+        CsvReader(Reader reader) {
+            super(reader);
+        }
+
+        @Override
+        protected Map<String, String> readRecord(Reader reader) throws IOException {
+            BufferedReader lines = (BufferedReader) reader;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0 || line.startsWith("#")) {
+                    continue;
+                }
+                List<String> fields = split(line);
+                if (header == null) {
+                    header = fields.toArray(new String[fields.size()]);
+                    continue;
+                }
+                Map<String, String> record = new HashMap<String, String>();
+                for (int i = 0; i < header.length && i < fields.size(); i++) {
+                    record.put(header[i], fields.get(i));
+                }
+                return record;
+            }
+            return null;
+        }
+
+        // fields may be enclosed in double quotes, a quote inside is written twice
+        private static List<String> split(String line) {
+            List<String> fields = new ArrayList<String>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString().trim());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString().trim());
+            return fields;
+        }
+    }
+
+    private static class JsonReader extends CarRecordReader {
+
+        private boolean started;
+
+        JsonReader(Reader reader) {
+            super(reader);
+        }
+
+        @Override
+        protected Map<String, String> readRecord(Reader reader) throws IOException {
+            int c = skipWhitespace(reader);
+            if (!started) {
+                if (c != '[') {
+                    throw new IOException("A JSON array of cars expected");
+                }
+                started = true;
+                c = skipWhitespace(reader);
+            }
+            if (c == ',') {
+                c = skipWhitespace(reader);
+            }
+            if (c == ']' || c == -1) {
+                return null;
+            }
+            if (c != '{') {
+                throw new IOException("A JSON object expected but found " + (char) c);
+            }
+            Map<String, String> record = new HashMap<String, String>();
+            c = skipWhitespace(reader);
+            while (c != '}') {
+                if (c == ',') {
+                    c = skipWhitespace(reader);
+                }
+                if (c != '"') {
+                    throw new IOException("A property name expected");
+                }
+                String name = readString(reader);
+                if (skipWhitespace(reader) != ':') {
+                    throw new IOException("':' expected after " + name);
+                }
+                c = skipWhitespace(reader);
+                StringBuilder value = new StringBuilder();
+                if (c == '"') {
+                    value.append(readString(reader));
+                    c = skipWhitespace(reader);
+                } else {
+                    // numbers, booleans and null are taken as they are written
+                    while (c != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+                        value.append((char) c);
+                        c = reader.read();
+                    }
+                    if (Character.isWhitespace(c)) {
+                        c = skipWhitespace(reader);
+                    }
+                }
+                if (c == -1) {
+                    throw new IOException("Unexpected end of the JSON file");
+                }
+                record.put(name, value.toString());
+            }
+            return record;
+        }
+
+        private static int skipWhitespace(Reader reader) throws IOException {
+            int c;
+            do {
+                c = reader.read();
+            } while (c != -1 && Character.isWhitespace(c));
+            return c;
+        }
+
+        private static String readString(Reader reader) throws IOException {
+            StringBuilder value = new StringBuilder();
+            int c;
+            while ((c = reader.read()) != '"') {
+                if (c == -1) {
+                    throw new IOException("Unterminated JSON string");
+                }
+                if (c == '\\') {
+                    c = reader.read();
+                    switch (c) {
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'u':
+                        value.append(readUnicodeEscape(reader));
+                        break;
+                    default:
+                        value.append((char) c);
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            }
+            return value.toString();
+        }
+
+        // the four hex digits of a unicode escape
+        private static char readUnicodeEscape(Reader reader) throws IOException {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int c = reader.read();
+                if (c == -1) {
+                    throw new IOException("Unterminated JSON string");
+                }
+                int digit = Character.digit(c, 16);
+                if (digit < 0) {
+                    throw new IOException("Invalid unicode escape, '" + (char) c + "' is not a hex digit");
+                }
+                value = value * 16 + digit;
+            }
+            return (char) value;
+        }
+    }
+}
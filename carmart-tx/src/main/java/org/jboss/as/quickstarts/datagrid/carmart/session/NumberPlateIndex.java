@@ -0,0 +1,334 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.infinispan.api.BasicCache;
+
+/**
+ * Keeps the number plates of all cars in bucket entries instead of a single list.
+ * <p>
+ * A plate always lives in the bucket chosen by its hash, so adding or removing a car rewrites one small bucket rather
+ * than the whole inventory. Plates are kept sorted within a bucket, which lets a page of the listing be read with a
+ * cursor that stays valid while cars are added or removed.
+ * </p>
+ * <p>
+ * The index starts with a single bucket and doubles the number of buckets whenever one of them would hold more than
+ * <code>maxBucketSize</code> plates, so a page of the listing reads one or two buckets however many cars there are. The
+ * number of buckets is stored in the cache next to them. Buckets are listed in bit-reversed order, in which the buckets
+ * a bucket is split into follow each other, so a cursor taken before the index grew still resumes where it left off.
+ * </p>
+ * 
+ */
+public class NumberPlateIndex {
+
+    /**
+     * Two pages of the car list.
+     */
+    public static final int DEFAULT_MAX_BUCKET_SIZE = 2 * CarManager.PAGE_SIZE;
+
+    private static final char CURSOR_SEPARATOR = ':';
+
+    private final BasicCache<String, Object> cache;
+    private final String keyPrefix;
+    private final int maxBucketSize;
+
+    public NumberPlateIndex(BasicCache<String, Object> cache, String keyPrefix) {
+        this(cache, keyPrefix, DEFAULT_MAX_BUCKET_SIZE);
+    }
+
+    public NumberPlateIndex(BasicCache<String, Object> cache, String keyPrefix, int maxBucketSize) {
+        if (maxBucketSize < 1) {
+            throw new IllegalArgumentException("The maximum bucket size must be positive");
+        }
+        this.cache = cache;
+        this.keyPrefix = keyPrefix;
+        this.maxBucketSize = maxBucketSize;
+    }
+
+    public void add(String numberPlate) {
+        int shards = getShards();
+        int shard = shard(numberPlate, shards);
+        String key = bucketKey(shard);
+        // never change the stored bucket in place, the cache may hand out the same instance to other readers
+        TreeSet<String> bucket = copy(getBucket(key));
+        if (!bucket.add(numberPlate)) {
+            return;
+        }
+        if (bucket.size() > maxBucketSize) {
+            List<TreeSet<String>> buckets = readAll(shards);
+            buckets.set(shard, bucket);
+            grow(buckets);
+        } else {
+            cache.put(key, bucket);
+        }
+    }
+
+    public void addAll(Collection<String> numberPlates) {
+        int shards = getShards();
+        List<List<String>> byShard = new ArrayList<List<String>>(shards);
+        for (int i = 0; i < shards; i++) {
+            byShard.add(new ArrayList<String>());
+        }
+        for (String numberPlate : numberPlates) {
+            byShard.get(shard(numberPlate, shards)).add(numberPlate);
+        }
+        // only the buckets that get new plates are read, unless one of them grows too large
+        Map<Integer, TreeSet<String>> changed = new HashMap<Integer, TreeSet<String>>();
+        boolean tooLarge = false;
+        for (int i = 0; i < shards; i++) {
+            if (!byShard.get(i).isEmpty()) {
+                TreeSet<String> bucket = copy(getBucket(bucketKey(i)));
+                if (bucket.addAll(byShard.get(i))) {
+                    changed.put(i, bucket);
+                    tooLarge |= bucket.size() > maxBucketSize;
+                }
+            }
+        }
+        if (tooLarge) {
+            List<TreeSet<String>> buckets = readAll(shards);
+            for (Map.Entry<Integer, TreeSet<String>> bucket : changed.entrySet()) {
+                buckets.set(bucket.getKey(), bucket.getValue());
+            }
+            grow(buckets);
+        } else {
+            for (Map.Entry<Integer, TreeSet<String>> bucket : changed.entrySet()) {
+                cache.put(bucketKey(bucket.getKey()), bucket.getValue());
+            }
+        }
+    }
+
+    public void remove(String numberPlate) {
+        String key = bucketKey(shard(numberPlate, getShards()));
+        SortedSet<String> current = getBucket(key);
+        if (current == null || !current.contains(numberPlate)) {
+            return;
+        }
+        TreeSet<String> bucket = copy(current);
+        bucket.remove(numberPlate);
+        if (bucket.isEmpty()) {
+            cache.remove(key);
+        } else {
+            cache.put(key, bucket);
+        }
+    }
+
+    /**
+     * Moves the plates of a pre-index list stored under <code>legacyKey</code> into the index and removes the list.
+     */
+    @SuppressWarnings("unchecked")
+    public void migrate(String legacyKey) {
+        Object legacy = cache.get(legacyKey);
+        if (legacy instanceof List) {
+            addAll((List<String>) legacy);
+            cache.remove(legacyKey);
+        }
+    }
+
+    /**
+     * Reads at most <code>size</code> plates following the given cursor. Only the buckets needed to fill the page are
+     * read.
+     * 
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     */
+    public Page page(String cursor, int size) {
+        int shards = getShards();
+        List<String> plates = new ArrayList<String>(size);
+        int position = 0;
+        // where the last plate of the page was found
+        int lastShards = shards;
+        int lastPosition = 0;
+        if (cursor != null && cursor.length() > 0) {
+            int first = cursor.indexOf(CURSOR_SEPARATOR);
+            int second = cursor.indexOf(CURSOR_SEPARATOR, first + 1);
+            int cursorShards;
+            int cursorPosition;
+            try {
+                cursorShards = Integer.parseInt(cursor.substring(0, first));
+                cursorPosition = Integer.parseInt(cursor.substring(first + 1, second));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            // the index only grows, by doubling
+            if (Integer.bitCount(cursorShards) != 1 || cursorShards > shards || cursorPosition < 0
+                    || cursorPosition >= cursorShards) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            String last = cursor.substring(second + 1);
+            // the bucket of the cursor may have been split since, the plates of its parts are listed together
+            int split = shards / cursorShards;
+            SortedSet<String> resumed = new TreeSet<String>();
+            for (position = cursorPosition * split; position < (cursorPosition + 1) * split; position++) {
+                SortedSet<String> bucket = getBucket(bucketKey(shardAt(position, shards)));
+                if (bucket != null) {
+                    resumed.addAll(bucket.tailSet(last));
+                }
+            }
+            lastShards = cursorShards;
+            lastPosition = cursorPosition;
+            if (fill(plates, resumed, last, size)) {
+                return new Page(plates, cursor(lastShards, lastPosition, plates.get(size - 1)));
+            }
+        }
+        for (; position < shards; position++) {
+            SortedSet<String> bucket = getBucket(bucketKey(shardAt(position, shards)));
+            if (bucket == null) {
+                continue;
+            }
+            int before = plates.size();
+            boolean more = fill(plates, bucket, null, size);
+            if (plates.size() > before) {
+                lastShards = shards;
+                lastPosition = position;
+            }
+            if (more) {
+                return new Page(plates, cursor(lastShards, lastPosition, plates.get(size - 1)));
+            }
+        }
+        return new Page(plates, null);
+    }
+
+    // adds the plates of the bucket that follow the given one until the page is full, tells whether any are left
+    private static boolean fill(List<String> plates, SortedSet<String> bucket, String after, int size) {
+        for (String numberPlate : bucket) {
+            if (numberPlate.equals(after)) {
+                continue;
+            }
+            if (plates.size() == size) {
+                return true;
+            }
+            plates.add(numberPlate);
+        }
+        return false;
+    }
+
+    /**
+     * Spreads the plates of all buckets over enough buckets to keep each of them below the maximum size. The buckets
+     * that are new are written before the number of buckets, and the ones that existed before after it, so a reader
+     * may see a plate twice while the index grows but never misses one.
+     */
+    private void grow(List<TreeSet<String>> buckets) {
+        int shards = buckets.size();
+        int largest = 0;
+        for (TreeSet<String> bucket : buckets) {
+            largest = Math.max(largest, bucket.size());
+        }
+        int grownShards = shards;
+        while (largest > maxBucketSize * (grownShards / shards)) {
+            grownShards *= 2;
+        }
+        List<TreeSet<String>> grown = new ArrayList<TreeSet<String>>(grownShards);
+        for (int i = 0; i < grownShards; i++) {
+            grown.add(new TreeSet<String>());
+        }
+        for (TreeSet<String> bucket : buckets) {
+            for (String numberPlate : bucket) {
+                grown.get(shard(numberPlate, grownShards)).add(numberPlate);
+            }
+        }
+        for (int i = shards; i < grownShards; i++) {
+            if (!grown.get(i).isEmpty()) {
+                cache.put(bucketKey(i), grown.get(i));
+            }
+        }
+        cache.put(shardsKey(), grownShards);
+        for (int i = 0; i < shards; i++) {
+            if (grown.get(i).isEmpty()) {
+                cache.remove(bucketKey(i));
+            } else {
+                cache.put(bucketKey(i), grown.get(i));
+            }
+        }
+    }
+
+    private List<TreeSet<String>> readAll(int shards) {
+        List<TreeSet<String>> buckets = new ArrayList<TreeSet<String>>(shards);
+        for (int i = 0; i < shards; i++) {
+            buckets.add(copy(getBucket(bucketKey(i))));
+        }
+        return buckets;
+    }
+
+    // the number of buckets, always a power of two
+    private int getShards() {
+        Integer shards = (Integer) cache.get(shardsKey());
+        return shards == null ? 1 : shards;
+    }
+
+    @SuppressWarnings("unchecked")
+    private SortedSet<String> getBucket(String key) {
+        return (SortedSet<String>) cache.get(key);
+    }
+
+    private static TreeSet<String> copy(SortedSet<String> bucket) {
+        return bucket == null ? new TreeSet<String>() : new TreeSet<String>(bucket);
+    }
+
+    private static int shard(String numberPlate, int shards) {
+        return numberPlate.hashCode() & (shards - 1);
+    }
+
+    // the bucket listed at the given position, its number with the bits reversed
+    private static int shardAt(int position, int shards) {
+        return shards == 1 ? 0 : Integer.reverse(position) >>> Integer.numberOfLeadingZeros(shards) + 1;
+    }
+
+    private String bucketKey(int shard) {
+        return keyPrefix + "." + shard;
+    }
+
+    private String shardsKey() {
+        return keyPrefix + ".shards";
+    }
+
+    private static String cursor(int shards, int position, String lastNumberPlate) {
+        return shards + String.valueOf(CURSOR_SEPARATOR) + position + CURSOR_SEPARATOR + lastNumberPlate;
+    }
+
+    /**
+     * One page of number plates and the cursor pointing behind it.
+     */
+    public static class Page {
+
+        private final List<String> numberPlates;
+        private final String nextCursor;
+
+        Page(List<String> numberPlates, String nextCursor) {
+            this.numberPlates = Collections.unmodifiableList(numberPlates);
+            this.nextCursor = nextCursor;
+        }
+
+        public List<String> getNumberPlates() {
+            return numberPlates;
+        }
+
+        /**
+         * @return the cursor of the following page, or null if this is the last one
+         */
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+}
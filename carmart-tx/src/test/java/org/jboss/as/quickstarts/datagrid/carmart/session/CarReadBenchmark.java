@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.transaction.TransactionManager;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.transaction.LockingMode;
+import org.infinispan.transaction.TransactionMode;
+import org.infinispan.transaction.lookup.DummyTransactionManagerLookup;
+import org.infinispan.util.concurrent.IsolationLevel;
+import org.jboss.as.quickstarts.datagrid.carmart.model.Car;
+import org.jboss.as.quickstarts.datagrid.carmart.model.Car.CarType;
+import org.jboss.as.quickstarts.datagrid.carmart.model.Car.Country;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the read throughput of the car details and the car list page with and without a transaction around the
+ * reads. The cache is configured the way JBossASCacheContainerProvider configures it, except for the eviction and the
+ * cache store, so that only the cost of the transaction is measured.
+ * <p>
+ * Run with (add <code>-t 4</code> to the exec.args to read from several threads):
+ * <code>mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test -Dexec.args="-cp %classpath org.openjdk.jmh.Main CarReadBenchmark"</code>
+ * </p>
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CarReadBenchmark {
+
+    private static final int CARS = 1000;
+
+    private DefaultCacheManager manager;
+    private Cache<String, Object> cache;
+    private TransactionManager tm;
+    private NumberPlateIndex index;
+    private List<String> keys;
+
+    @Setup
+    public void setUp() throws Exception {
+        Configuration loc = new ConfigurationBuilder()
+            .clustering().cacheMode(CacheMode.LOCAL)
+            .transaction().transactionMode(TransactionMode.TRANSACTIONAL).autoCommit(false)
+            .lockingMode(LockingMode.OPTIMISTIC).transactionManagerLookup(new DummyTransactionManagerLookup())
+            .locking().isolationLevel(IsolationLevel.REPEATABLE_READ)
+            .build();
+        manager = new DefaultCacheManager(new GlobalConfigurationBuilder().nonClusteredDefault().build(), loc, true);
+        cache = manager.getCache(CarManager.CACHE_NAME);
+        tm = cache.getAdvancedCache().getTransactionManager();
+        index = new NumberPlateIndex(cache, CarManager.CAR_NUMBERS_KEY);
+
+        keys = new ArrayList<String>(CARS);
+        List<String> numberPlates = new ArrayList<String>(CARS);
+        tm.begin();
+        for (int i = 0; i < CARS; i++) {
+            Car car = new Car("Ford Focus", 1.6, CarType.COMBI, "white", "FML " + i, Country.CZECH_REPUBLIC);
+            keys.add(CarManager.encode(car.getNumberPlate()));
+            numberPlates.add(car.getNumberPlate());
+            cache.put(keys.get(i), car);
+        }
+        index.addAll(numberPlates);
+        tm.commit();
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.stop();
+    }
+
+    @Benchmark
+    public Object carDetails(Reader reader) {
+        return cache.get(reader.randomKey(keys));
+    }
+
+    @Benchmark
+    public Object carDetailsInTransaction(Reader reader) throws Exception {
+        tm.begin();
+        try {
+            return cache.get(reader.randomKey(keys));
+        } finally {
+            tm.commit();
+        }
+    }
+
+    @Benchmark
+    public Object carList() {
+        return index.page(null, CarManager.PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Object carListInTransaction() throws Exception {
+        tm.begin();
+        try {
+            return index.page(null, CarManager.PAGE_SIZE);
+        } finally {
+            tm.commit();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Reader {
+
+        private final Random random = new Random();
+
+        String randomKey(List<String> keys) {
+            return keys.get(random.nextInt(keys.size()));
+        }
+    }
+}
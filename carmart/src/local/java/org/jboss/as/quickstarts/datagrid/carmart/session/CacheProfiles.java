@@ -0,0 +1,168 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.FileCacheStoreConfigurationBuilder;
+import org.infinispan.configuration.cache.LoaderConfigurationBuilder;
+import org.infinispan.configuration.cache.LoadersConfigurationBuilder;
+import org.infinispan.eviction.EvictionStrategy;
+
+/**
+ * Cache settings which can be tuned per deployment, read from a properties file instead of being compiled in.
+ * <p>
+ * Every property is prefixed by the name of the cache it applies to, properties of the <code>default</code> profile
+ * apply to the default configuration and to every named cache that does not override them:
+ * </p>
+ * <ul>
+ * <li><code>eviction.maxEntries</code>, <code>eviction.strategy</code> (NONE, UNORDERED, LRU, LIRS)</li>
+ * <li><code>expiration.lifespan</code>, <code>expiration.maxIdle</code>, <code>expiration.wakeUpInterval</code> in
+ * milliseconds</li>
+ * <li><code>clustering.numOwners</code></li>
+ * <li><code>store</code> (none, file), <code>store.location</code>, <code>store.purgeOnStartup</code>,
+ * <code>store.preload</code>, <code>store.passivation</code></li>
+ * <li><code>store.async</code> to write to the file store behind the cache with a {@link WriteBehindFileCacheStore},
+ * <code>store.async.threads</code>, <code>store.async.queueSize</code>, <code>store.async.queueTimeout</code> in
+ * milliseconds</li>
+ * </ul>
+ * <p>
+ * Settings that are not given keep the values of the configuration they are applied to.
+ * </p>
+ * 
+ */
+public class CacheProfiles {
+
+    public static final String DEFAULT_PROFILE = "default";
+
+    private final Properties properties;
+
+    public CacheProfiles(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Reads the file named by the given system property, or the classpath resource if the system property is not set.
+     */
+    public static CacheProfiles load(String resource, String fileProperty) {
+        Properties props = new Properties();
+        String file = System.getProperty(fileProperty);
+        InputStream in = null;
+        try {
+            in = file != null ? new FileInputStream(new File(file)) : CacheProfiles.class.getClassLoader()
+                    .getResourceAsStream(resource);
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (IOException ioe) {
+            throw new RuntimeException("Could not read the cache profiles from " + (file != null ? file : resource), ioe);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+        return new CacheProfiles(props);
+    }
+
+    /**
+     * @return the names of the caches with a profile of their own
+     */
+    public Set<String> getCacheNames() {
+        Set<String> names = new TreeSet<String>();
+        for (String key : properties.stringPropertyNames()) {
+            int dot = key.indexOf('.');
+            if (dot > 0 && !key.substring(0, dot).equals(DEFAULT_PROFILE)) {
+                names.add(key.substring(0, dot));
+            }
+        }
+        return names;
+    }
+
+    public ConfigurationBuilder apply(ConfigurationBuilder builder, String cacheName) {
+        String value;
+        if ((value = get(cacheName, "eviction.maxEntries")) != null) {
+            builder.eviction().maxEntries(Integer.parseInt(value));
+        }
+        if ((value = get(cacheName, "eviction.strategy")) != null) {
+            builder.eviction().strategy(EvictionStrategy.valueOf(value.toUpperCase()));
+        }
+        if ((value = get(cacheName, "expiration.lifespan")) != null) {
+            builder.expiration().lifespan(Long.parseLong(value));
+        }
+        if ((value = get(cacheName, "expiration.maxIdle")) != null) {
+            builder.expiration().maxIdle(Long.parseLong(value));
+        }
+        if ((value = get(cacheName, "expiration.wakeUpInterval")) != null) {
+            builder.expiration().wakeUpInterval(Long.parseLong(value));
+        }
+        if ((value = get(cacheName, "clustering.numOwners")) != null) {
+            builder.clustering().hash().numOwners(Integer.parseInt(value));
+        }
+        if ("file".equalsIgnoreCase(get(cacheName, "store"))) {
+            LoadersConfigurationBuilder loaders = builder.loaders();
+            loaders.passivation(getBoolean(cacheName, "store.passivation"));
+            loaders.preload(getBoolean(cacheName, "store.preload"));
+            if (getBoolean(cacheName, "store.async")) {
+                // the file store written behind the cache, which keeps the metrics shown by StatisticsProvider
+                LoaderConfigurationBuilder store = loaders.addCacheLoader().cacheLoader(new WriteBehindFileCacheStore());
+                if ((value = get(cacheName, "store.location")) != null) {
+                    store.addProperty("location", value);
+                }
+                if ((value = get(cacheName, "store.async.threads")) != null) {
+                    store.addProperty("flushThreads", value);
+                }
+                if ((value = get(cacheName, "store.async.queueSize")) != null) {
+                    store.addProperty("modificationQueueSize", value);
+                }
+                if ((value = get(cacheName, "store.async.queueTimeout")) != null) {
+                    store.addProperty("modificationQueueTimeout", value);
+                }
+                store.purgeOnStartup(getBoolean(cacheName, "store.purgeOnStartup"));
+            } else {
+                FileCacheStoreConfigurationBuilder store = loaders.addFileCacheStore();
+                if ((value = get(cacheName, "store.location")) != null) {
+                    store.location(value);
+                }
+                store.purgeOnStartup(getBoolean(cacheName, "store.purgeOnStartup"));
+            }
+        }
+        return builder;
+    }
+
+    // a named cache falls back to the default profile
+    private String get(String cacheName, String setting) {
+        String value = properties.getProperty(cacheName + "." + setting);
+        if (value == null) {
+            value = properties.getProperty(DEFAULT_PROFILE + "." + setting);
+        }
+        return value == null ? null : value.trim();
+    }
+
+    private boolean getBoolean(String cacheName, String setting) {
+        return Boolean.parseBoolean(get(cacheName, setting));
+    }
+}
@@ -25,7 +25,6 @@ import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.configuration.global.GlobalConfigurationBuilder;
-import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.manager.DefaultCacheManager;
 import org.infinispan.util.concurrent.IsolationLevel;
 import org.jboss.as.quickstarts.datagrid.carmart.session.CacheContainerProvider;
@@ -36,38 +35,65 @@ import org.jboss.as.quickstarts.datagrid.carmart.session.CacheContainerProvider;
  * which is configured programmatically. Infinispan's libraries need to be bundled 
  * with the application - this is called "library" mode.
  * 
+ * Eviction, expiration and the cache store are set per cache in META-INF/cache-profiles.properties,
+ * or in the file named by the carmart.cache.profiles system property.
  * 
  * @author Martin Gencur
  * 
  */
 @ApplicationScoped
 public class LocalCacheContainerProvider extends CacheContainerProvider {
+    public static final String CACHE_PROFILES_FILE = "META-INF/cache-profiles.properties";
+    public static final String CACHE_PROFILES_PROPERTY = "carmart.cache.profiles";
+
     private Logger log = Logger.getLogger(this.getClass().getName());
 
     private BasicCacheContainer manager;
 
+    private DefaultCacheManager cacheManager;
+
     public BasicCacheContainer getCacheContainer() {
         if (manager == null) {
             GlobalConfiguration glob = new GlobalConfigurationBuilder()
                 .nonClusteredDefault() //Helper method that gets you a default constructed GlobalConfiguration, preconfigured for use in LOCAL mode
                 .globalJmxStatistics().enable() //This method allows enables the jmx statistics of the global configuration.
                 .build(); //Builds  the GlobalConfiguration object
-            Configuration loc = new ConfigurationBuilder()
-                .jmxStatistics().enable() //Enable JMX statistics
-                .clustering().cacheMode(CacheMode.LOCAL) //Set Cache mode to LOCAL - Data is not replicated.
-                .locking().isolationLevel(IsolationLevel.REPEATABLE_READ) //Sets the isolation level of locking
-                .eviction().maxEntries(4).strategy(EvictionStrategy.LIRS) //Sets  4 as maximum number of entries in a cache instance and uses the LIRS strategy - an efficient low inter-reference recency set replacement policy to improve buffer cache performance
-                .loaders().passivation(false).addFileCacheStore().purgeOnStartup(true) //Disable passivation and adds a FileCacheStore that is Purged on Startup
-                .build(); //Builds the Configuration object
-            manager = new DefaultCacheManager(glob, loc, true);
+            CacheProfiles profiles = CacheProfiles.load(CACHE_PROFILES_FILE, CACHE_PROFILES_PROPERTY);
+            Configuration loc = configurationBuilder(profiles, CacheProfiles.DEFAULT_PROFILE).build(); //Builds the Configuration object
+            cacheManager = new DefaultCacheManager(glob, loc, true);
+            for (String cacheName : profiles.getCacheNames()) {
+                cacheManager.defineConfiguration(cacheName, configurationBuilder(profiles, cacheName).build()); //Caches with a profile of their own
+            }
+            manager = new MeteredCacheContainer(cacheManager); // Records the latency of the reads and writes for CacheMetrics
             log.info("=== Using DefaultCacheManager (library mode) ===");
         }
         return manager;
     }
 
+    /**
+     * The DefaultCacheManager behind the container returned by {@link #getCacheContainer()}, for the statistics.
+     */
+    public DefaultCacheManager getCacheManager() {
+        getCacheContainer();
+        return cacheManager;
+    }
+
+    /**
+     * The settings that are not part of the cache profiles, with the profile of the given cache applied on top.
+     */
+    private ConfigurationBuilder configurationBuilder(CacheProfiles profiles, String cacheName) {
+        ConfigurationBuilder builder = new ConfigurationBuilder();
+        builder.jmxStatistics().enable() //Enable JMX statistics
+            .clustering().cacheMode(CacheMode.LOCAL) //Set Cache mode to LOCAL - Data is not replicated.
+            .locking().isolationLevel(IsolationLevel.REPEATABLE_READ); //Sets the isolation level of locking
+        //Eviction, expiration and the cache store come from META-INF/cache-profiles.properties
+        return profiles.apply(builder, cacheName);
+    }
+
     @PreDestroy
     public void cleanUp() {
         manager.stop();
         manager = null;
+        cacheManager = null;
     }
 }
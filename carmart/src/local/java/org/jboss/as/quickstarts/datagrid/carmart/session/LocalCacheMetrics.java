@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+import java.util.Collections;
+import java.util.Map;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.remoting.transport.Address;
+
+/**
+ * 
+ * {@link CacheMetrics} of the cache running in the application - library mode.
+ * 
+ */
+@Named("metrics")
+@ApplicationScoped
+public class LocalCacheMetrics extends CacheMetrics {
+
+    @Inject
+    private LocalCacheContainerProvider provider;
+
+    protected CacheContainerProvider getProvider() {
+        return provider;
+    }
+
+    private AdvancedCache<Object, Object> getCache() {
+        return provider.getCacheManager().getCache(CarManager.CACHE_NAME).getAdvancedCache();
+    }
+
+    protected long readHits() {
+        return getCache().getStats().getHits();
+    }
+
+    protected long readMisses() {
+        return getCache().getStats().getMisses();
+    }
+
+    protected long readEvictions() {
+        return getCache().getStats().getEvictions();
+    }
+
+    protected long readStoreQueueDepth() {
+        WriteBehindFileCacheStore store = WriteBehindFileCacheStore.find(getCache());
+        return store == null ? -1 : store.getQueueDepth();
+    }
+
+    // the cache is local, a single node holds all of its entries
+    protected Map<String, Integer> readEntriesPerNode() {
+        Address address = provider.getCacheManager().getAddress();
+        return Collections.singletonMap(address == null ? "local" : address.toString(), getCache().getStats()
+                .getCurrentNumberOfEntries());
+    }
+}
@@ -16,11 +16,13 @@
  */
 package org.jboss.as.quickstarts.datagrid.carmart.session;
 
+import java.util.concurrent.TimeUnit;
+
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
-import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.AdvancedCache;
 import org.infinispan.stats.Stats;
 import org.jboss.as.quickstarts.datagrid.carmart.session.CarManager;
 import org.jboss.as.quickstarts.datagrid.carmart.session.StatisticsProvider;
@@ -35,10 +37,14 @@ public class LocalStatisticsProvider implements StatisticsProvider {
 
     private Stats stats;
 
+    private WriteBehindFileCacheStore writeBehindStore;
+
     @PostConstruct
     public void getStatsObject() {
-        stats = ((DefaultCacheManager) provider.getCacheContainer()).getCache(CarManager.CACHE_NAME).getAdvancedCache()
-                .getStats();
+        AdvancedCache<Object, Object> cache = provider.getCacheManager().getCache(CarManager.CACHE_NAME)
+                .getAdvancedCache();
+        stats = cache.getStats();
+        writeBehindStore = WriteBehindFileCacheStore.find(cache);
     }
 
     public String getRetrievals() {
@@ -62,6 +68,45 @@ public class LocalStatisticsProvider implements StatisticsProvider {
     }
 
     public String getRemoveHits() {
-        return String.valueOf(stats.getRemoveMisses());
+        return String.valueOf(stats.getRemoveHits());
+    }
+
+    public boolean isNearCacheEnabled() {
+        return false;
+    }
+
+    public String getNearCacheHits() {
+        return "";
+    }
+
+    public String getNearCacheMisses() {
+        return "";
+    }
+
+    public String getNearCacheEntries() {
+        return "";
+    }
+
+    public boolean isWriteBehindEnabled() {
+        return writeBehindStore != null;
+    }
+
+    public String getStoreQueueDepth() {
+        return writeBehindStore == null ? "" : String.valueOf(writeBehindStore.getQueueDepth());
+    }
+
+    /**
+     * Average and maximum time in microseconds of a write to the file store.
+     */
+    public String getStoreFlushLatency() {
+        return writeBehindStore == null ? "" : writeBehindStore.getAverageFlushLatency(TimeUnit.MICROSECONDS) + " / "
+                + writeBehindStore.getMaxFlushLatency(TimeUnit.MICROSECONDS) + " us";
+    }
+
+    /**
+     * Writes to the file store that failed and were queued again.
+     */
+    public String getStoreFailures() {
+        return writeBehindStore == null ? "" : String.valueOf(writeBehindStore.getFailureCount());
     }
 }
@@ -0,0 +1,429 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.Cache;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.loaders.CacheLoaderConfig;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheLoaderManager;
+import org.infinispan.loaders.CacheLoaderMetadata;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.decorators.AbstractDelegatingStore;
+import org.infinispan.loaders.file.FileCacheStore;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.transaction.xa.GlobalTransaction;
+
+/**
+ * A {@link FileCacheStore} written behind the cache. Stores and removals are put in a bounded queue and written to the
+ * file store by a pool of flush threads, so the request thread never waits for file I/O unless the queue is full. A
+ * write that finds the queue full for longer than the configured timeout fails with a {@link CacheLoaderException}.
+ * <p>
+ * A key has at most one pending modification: writing a key that is still waiting to be flushed replaces the pending
+ * modification, so repeated writes to the same key end up as a single file write. Loads see the pending modifications
+ * before they reach the file.
+ * </p>
+ * <p>
+ * A modification that fails to be written stays pending and is written again later, after a delay that doubles with
+ * every failure of the same key from {@value #MIN_RETRY_DELAY_MILLIS} ms up to {@value #MAX_RETRY_DELAY_MILLIS} ms.
+ * </p>
+ * The queue depth, the number of failed writes and the time spent writing to the file store are kept for
+ * {@link StatisticsProvider}.
+ * 
+ */
+@CacheLoaderMetadata(configurationClass = WriteBehindFileCacheStoreConfig.class)
+public class WriteBehindFileCacheStore extends AbstractDelegatingStore {
+
+    static final long MIN_RETRY_DELAY_MILLIS = 100;
+
+    static final long MAX_RETRY_DELAY_MILLIS = 30000;
+
+    // the longest time a bulk operation or stop waits for the pending modifications to be written
+    private static final long FLUSH_ALL_TIMEOUT_SECONDS = 30;
+
+    private static final Object REMOVED = new Object();
+
+    // taken from the flush queue by a flush thread when the store stops
+    private static final Object STOP = new Object();
+
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+
+    // the latest modification of every key that is waiting to be flushed, an entry or REMOVED
+    private final ConcurrentMap<Object, Object> pending = new ConcurrentHashMap<Object, Object>();
+
+    // every key of the pending map is either in this queue, being written by a flush thread or waiting for a retry,
+    // and in only one of these places at a time
+    private final BlockingQueue<Object> flushQueue = new LinkedBlockingQueue<Object>();
+
+    // the number of failed writes of the keys that are waiting to be written again
+    private final ConcurrentMap<Object, Integer> failedAttempts = new ConcurrentHashMap<Object, Integer>();
+
+    // signalled when the last pending modification has been written
+    private final Lock drainLock = new ReentrantLock();
+    private final Condition drained = drainLock.newCondition();
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private int flushThreads;
+    private Semaphore capacity;
+    private long queueTimeoutMillis;
+    private ExecutorService flushers;
+    private ScheduledExecutorService retries;
+
+    public WriteBehindFileCacheStore() {
+        this(new FileCacheStore());
+    }
+
+    // the tests write behind a store of their own
+    WriteBehindFileCacheStore(CacheStore delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public void init(CacheLoaderConfig config, Cache<?, ?> cache, StreamingMarshaller m) throws CacheLoaderException {
+        super.init(config, cache, m);
+        WriteBehindFileCacheStoreConfig storeConfig = (WriteBehindFileCacheStoreConfig) config;
+        flushThreads = storeConfig.getFlushThreads();
+        capacity = new Semaphore(storeConfig.getModificationQueueSize());
+        queueTimeoutMillis = storeConfig.getModificationQueueTimeout();
+    }
+
+    @Override
+    public void start() throws CacheLoaderException {
+        super.start();
+        flushers = Executors.newFixedThreadPool(flushThreads, daemonThreads("carmart-store-flush-"));
+        retries = Executors.newSingleThreadScheduledExecutor(daemonThreads("carmart-store-retry-"));
+        for (int i = 0; i < flushThreads; i++) {
+            flushers.execute(new Runnable() {
+                public void run() {
+                    try {
+                        Object key;
+                        while ((key = flushQueue.take()) != STOP) {
+                            flush(key);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public void stop() throws CacheLoaderException {
+        flushAll();
+        // a scheduled retry only puts its key back in the queue, cancelling it interrupts no write
+        retries.shutdownNow();
+        // the flush threads finish the writes they have started and the keys queued before they stop
+        for (int i = 0; i < flushThreads; i++) {
+            flushQueue.add(STOP);
+        }
+        flushers.shutdown();
+        try {
+            if (!flushers.awaitTermination(FLUSH_ALL_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warning("The flush threads did not stop within " + FLUSH_ALL_TIMEOUT_SECONDS + " seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!pending.isEmpty()) {
+            log.warning(pending.size() + " modifications could not be written to the file store and are lost");
+        }
+        super.stop();
+    }
+
+    @Override
+    public void store(InternalCacheEntry entry) throws CacheLoaderException {
+        enqueue(entry.getKey(), entry);
+    }
+
+    @Override
+    public boolean remove(Object key) throws CacheLoaderException {
+        enqueue(key, REMOVED);
+        return true;
+    }
+
+    @Override
+    public void removeAll(Set<Object> keys) throws CacheLoaderException {
+        for (Object key : keys) {
+            enqueue(key, REMOVED);
+        }
+    }
+
+    @Override
+    public InternalCacheEntry load(Object key) throws CacheLoaderException {
+        Object modification = pending.get(key);
+        if (modification == REMOVED) {
+            return null;
+        }
+        if (modification != null) {
+            return (InternalCacheEntry) modification;
+        }
+        return super.load(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) throws CacheLoaderException {
+        Object modification = pending.get(key);
+        if (modification != null) {
+            return modification != REMOVED;
+        }
+        return super.containsKey(key);
+    }
+
+    // bulk operations work on the file store, so the pending modifications are written first
+
+    @Override
+    public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
+        flushAll();
+        return super.loadAll();
+    }
+
+    @Override
+    public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException {
+        flushAll();
+        return super.load(numEntries);
+    }
+
+    @Override
+    public Set<Object> loadAllKeys(Set<Object> keysToExclude) throws CacheLoaderException {
+        flushAll();
+        return super.loadAllKeys(keysToExclude);
+    }
+
+    @Override
+    public void clear() throws CacheLoaderException {
+        flushAll();
+        super.clear();
+    }
+
+    @Override
+    public void toStream(ObjectOutput outputStream) throws CacheLoaderException {
+        flushAll();
+        super.toStream(outputStream);
+    }
+
+    @Override
+    public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
+        flushAll();
+        super.fromStream(inputStream);
+    }
+
+    @Override
+    public void prepare(List<? extends Modification> modifications, GlobalTransaction tx, boolean isOnePhase)
+            throws CacheLoaderException {
+        flushAll();
+        super.prepare(modifications, tx, isOnePhase);
+    }
+
+    /**
+     * @return the write-behind store of the cache, null if the cache does not use one
+     */
+    public static WriteBehindFileCacheStore find(AdvancedCache<?, ?> cache) {
+        CacheLoaderManager loaderManager = cache.getComponentRegistry().getComponent(CacheLoaderManager.class);
+        CacheStore store = loaderManager == null ? null : loaderManager.getCacheStore();
+        return store instanceof WriteBehindFileCacheStore ? (WriteBehindFileCacheStore) store : null;
+    }
+
+    /**
+     * @return the number of keys waiting to be written to the file store
+     */
+    public int getQueueDepth() {
+        return pending.size();
+    }
+
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    /**
+     * @return the number of writes that replaced a modification still waiting to be flushed
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return the number of writes to the file store that failed and are retried
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    public long getAverageFlushLatency(TimeUnit unit) {
+        long count = flushes.get();
+        return count == 0 ? 0 : unit.convert(flushNanos.get() / count, TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxFlushLatency(TimeUnit unit) {
+        return unit.convert(maxFlushNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    private void enqueue(Object key, Object modification) throws CacheLoaderException {
+        while (true) {
+            Object previous = pending.get(key);
+            if (previous != null) {
+                if (pending.replace(key, previous, modification)) {
+                    coalesced.incrementAndGet();
+                    return;
+                }
+            } else {
+                // a new key takes a place in the queue, the writer waits here while the queue is full
+                acquireCapacity(key);
+                if (pending.putIfAbsent(key, modification) == null) {
+                    flushQueue.add(key);
+                    return;
+                }
+                capacity.release();
+            }
+        }
+    }
+
+    private void acquireCapacity(Object key) throws CacheLoaderException {
+        try {
+            if (capacity.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheLoaderException("Interrupted while waiting to queue the write of " + key, e);
+        }
+        // the flushes keep failing or cannot keep up, the writer is not held any longer
+        throw new CacheLoaderException("Could not queue the write of " + key + ", the queue has been full for "
+                + queueTimeoutMillis + " ms and " + failures.get() + " writes to the file store have failed");
+    }
+
+    private void flush(final Object key) {
+        Object modification = pending.get(key);
+        long start = System.nanoTime();
+        try {
+            if (modification == REMOVED) {
+                getDelegate().remove(key);
+            } else {
+                getDelegate().store((InternalCacheEntry) modification);
+            }
+        } catch (CacheLoaderException e) {
+            recordFlush(System.nanoTime() - start);
+            failures.incrementAndGet();
+            // the key stays pending, with the newest modification, and keeps its place until it is written
+            Integer attempts = failedAttempts.get(key);
+            attempts = attempts == null ? 1 : attempts + 1;
+            failedAttempts.put(key, attempts);
+            long delay = Math.min(MIN_RETRY_DELAY_MILLIS << Math.min(attempts - 1, 20), MAX_RETRY_DELAY_MILLIS);
+            log.warning("Could not write " + key + " to the file store, retrying in " + delay + " ms: "
+                    + e.getMessage());
+            try {
+                retries.schedule(new Runnable() {
+                    public void run() {
+                        flushQueue.add(key);
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException stopping) {
+                // the store is stopping, the modification is reported as lost
+            }
+            return;
+        }
+        recordFlush(System.nanoTime() - start);
+        failedAttempts.remove(key);
+        // the modification stays visible to loads until it is written, a newer one is flushed again
+        if (pending.remove(key, modification)) {
+            capacity.release();
+            if (pending.isEmpty()) {
+                signalDrained();
+            }
+        } else {
+            flushQueue.add(key);
+        }
+    }
+
+    private void recordFlush(long nanos) {
+        flushes.incrementAndGet();
+        flushNanos.addAndGet(nanos);
+        long max;
+        while ((max = maxFlushNanos.get()) < nanos && !maxFlushNanos.compareAndSet(max, nanos)) {
+        }
+    }
+
+    private void signalDrained() {
+        drainLock.lock();
+        try {
+            drained.signalAll();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // waits until every pending modification is written, or until the writes have kept failing for too long
+    private void flushAll() {
+        long remaining = TimeUnit.SECONDS.toNanos(FLUSH_ALL_TIMEOUT_SECONDS);
+        drainLock.lock();
+        try {
+            while (!pending.isEmpty()) {
+                if (remaining <= 0) {
+                    log.warning("Gave up waiting for " + pending.size() + " modifications to be written to the file "
+                            + "store, " + failures.get() + " writes have failed");
+                    return;
+                }
+                remaining = drained.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(final String namePrefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, namePrefix + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
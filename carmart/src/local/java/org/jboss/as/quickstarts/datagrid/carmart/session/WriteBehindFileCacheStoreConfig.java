@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+import org.infinispan.loaders.file.FileCacheStoreConfig;
+
+/**
+ * Configuration of the {@link WriteBehindFileCacheStore}: the file store settings plus the size of the modification
+ * queue, how long a writer waits while it is full and the number of flush threads.
+ * 
+ */
+public class WriteBehindFileCacheStoreConfig extends FileCacheStoreConfig {
+
+    private static final long serialVersionUID = -3270467133429813532L;
+
+    private int flushThreads = 1;
+
+    private int modificationQueueSize = 1024;
+
+    private long modificationQueueTimeout = 10000;
+
+    public WriteBehindFileCacheStoreConfig() {
+        setCacheLoaderClassName(WriteBehindFileCacheStore.class.getName());
+    }
+
+    public int getFlushThreads() {
+        return flushThreads;
+    }
+
+    public void setFlushThreads(int flushThreads) {
+        testImmutability("flushThreads");
+        this.flushThreads = flushThreads;
+    }
+
+    public int getModificationQueueSize() {
+        return modificationQueueSize;
+    }
+
+    public void setModificationQueueSize(int modificationQueueSize) {
+        testImmutability("modificationQueueSize");
+        this.modificationQueueSize = modificationQueueSize;
+    }
+
+    /**
+     * @return how many milliseconds a write waits for room in a full modification queue before it fails
+     */
+    public long getModificationQueueTimeout() {
+        return modificationQueueTimeout;
+    }
+
+    public void setModificationQueueTimeout(long modificationQueueTimeout) {
+        testImmutability("modificationQueueTimeout");
+        this.modificationQueueTimeout = modificationQueueTimeout;
+    }
+}
@@ -16,20 +16,21 @@
  */
 package org.jboss.as.quickstarts.datagrid.carmart.jsf;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Logger;
 import javax.faces.application.Application;
+import javax.faces.context.FacesContext;
 import javax.faces.event.AbortProcessingException;
 import javax.faces.event.SystemEvent;
 import javax.faces.event.SystemEventListener;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
+import javax.servlet.ServletContext;
 import org.infinispan.api.BasicCache;
-import org.jboss.as.quickstarts.datagrid.carmart.model.Car;
-import org.jboss.as.quickstarts.datagrid.carmart.model.Car.CarType;
-import org.jboss.as.quickstarts.datagrid.carmart.model.Car.Country;
 import org.jboss.as.quickstarts.datagrid.carmart.session.CacheContainerProvider;
+import org.jboss.as.quickstarts.datagrid.carmart.session.CacheMetrics;
 import org.jboss.as.quickstarts.datagrid.carmart.session.CarManager;
 
 import javax.enterprise.context.spi.CreationalContext;
@@ -37,51 +38,102 @@ import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
 
 /**
- * Populates a cache with initial data. We need to obtain BeanManager from JNDI and create an instance of CacheContainerProvider
- * manually since injection into Listeners is not supported by CDI specification.
+ * Populates a cache with initial data read from the file configured in META-INF/import.properties. We need to obtain
+ * BeanManager from JNDI and create an instance of CacheContainerProvider manually since injection into Listeners is not
+ * supported by CDI specification.
  * 
  * @author Martin Gencur
  * 
  */
 public class PopulateCache implements SystemEventListener {
 
+    public static final String IMPORT_PROPERTIES_FILE = "META-INF/import.properties";
+    public static final String IMPORT_FILE = "carmart.import.file";
+    public static final String IMPORT_BATCH_SIZE = "carmart.import.batch.size";
+    public static final String IMPORT_THREADS = "carmart.import.threads";
+    public static final String IMPORT_PROGRESS_INTERVAL = "carmart.import.progress.interval";
+
     private Logger log = Logger.getLogger(this.getClass().getName());
 
     private CacheContainerProvider provider;
 
+    private ImportExecutor importExecutor;
+
     @Override
     public void processEvent(SystemEvent event) throws AbortProcessingException {
-        provider = getContextualInstance(getBeanManager(), CacheContainerProvider.class);
+        BeanManager beanManager = getBeanManager();
+        provider = getContextualInstance(beanManager, CacheContainerProvider.class);
+        importExecutor = getContextualInstance(beanManager, ImportExecutor.class);
+        // sample the cache metrics from the start, including the import
+        CacheMetrics metrics = getContextualInstance(beanManager, CacheMetrics.class);
+        if (metrics == null) {
+            log.warning("The cache metrics could not be found, they are not sampled");
+        } else {
+            metrics.start(deploymentName());
+        }
         startup();
     }
 
+    /**
+     * Starts the import of the cars in the background so that the application start is not held up.
+     */
     public void startup() {
-        BasicCache<String, Object> cars = provider.getCacheContainer().getCache(CarManager.CACHE_NAME);
-        List<String> carNumbers = new ArrayList<String>();
+        final BasicCache<String, Object> cars = provider.getCacheContainer().getCache(CarManager.CACHE_NAME);
+        final Properties config = loadImportProperties();
+        if (importExecutor == null) {
+            log.warning("The import executor could not be found, no cars are imported");
+            return;
+        }
+        final ExecutorService executor = importExecutor.getExecutor();
+        executor.submit(new Runnable() {
+            public void run() {
+                String file = importProperty(config, IMPORT_FILE);
+                CarImporter importer = new CarImporter(cars, executor, Integer.parseInt(importProperty(config,
+                        IMPORT_BATCH_SIZE)), Integer.parseInt(importProperty(config, IMPORT_THREADS)),
+                        Integer.parseInt(importProperty(config, IMPORT_PROGRESS_INTERVAL)));
+                CarRecordReader records = null;
+                try {
+                    log.info("Importing cars from " + file);
+                    records = CarRecordReader.open(file);
+                    importer.importCars(records);
+                    log.info("Successfully imported data!");
+                } catch (Exception e) {
+                    log.warning("An exception occured while populating the database! " + e.getMessage());
+                } finally {
+                    if (records != null) {
+                        try {
+                            records.close();
+                        } catch (IOException e) {
+                        }
+                    }
+                }
+            }
+        });
+    }
 
+    // the context path without the leading slash, e.g. jboss-as-carmart
+    private static String deploymentName() {
+        Object context = FacesContext.getCurrentInstance().getExternalContext().getContext();
+        if (context instanceof ServletContext) {
+            String path = ((ServletContext) context).getContextPath();
+            return path.startsWith("/") ? path.substring(1) : path;
+        }
+        return "carmart";
+    }
+
+    private Properties loadImportProperties() {
+        Properties props = new Properties();
         try {
-            Car c = new Car("Ford Focus", 1.6, CarType.COMBI, "white", "FML 23-25", Country.CZECH_REPUBLIC);
-            carNumbers.add(c.getNumberPlate());
-            cars.put(CarManager.encode(c.getNumberPlate()), c);
-            c = new Car("BMW X3", 2.0, CarType.SEDAN, "gray", "1P3 2632", Country.CZECH_REPUBLIC);
-            carNumbers.add(c.getNumberPlate());
-            cars.put(CarManager.encode(c.getNumberPlate()), c);
-            c = new Car("Ford Mondeo", 2.2, CarType.COMBI, "blue", "1B2 1111", Country.USA);
-            carNumbers.add(c.getNumberPlate());
-            cars.put(CarManager.encode(c.getNumberPlate()), c);
-            c = new Car("Mazda MX-5", 1.8, CarType.CABRIO, "red", "6T4 2526", Country.USA);
-            carNumbers.add(c.getNumberPlate());
-            cars.put(CarManager.encode(c.getNumberPlate()), c);
-            c = new Car("VW Golf", 1.6, CarType.HATCHBACK, "yellow", "2B2 4946", Country.GERMANY);
-            carNumbers.add(c.getNumberPlate());
-            cars.put(CarManager.encode(c.getNumberPlate()), c);
-            // insert a list of cars' number plates
-            cars.put(CarManager.CAR_NUMBERS_KEY, carNumbers);
-        } catch (Exception e) {
-            log.warning("An exception occured while populating the database!");
+            props.load(this.getClass().getClassLoader().getResourceAsStream(IMPORT_PROPERTIES_FILE));
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
         }
+        return props;
+    }
 
-        log.info("Successfully imported data!");
+    // a system property of the same name takes precedence, e.g. -Dcarmart.import.file=/data/cars.csv
+    private static String importProperty(Properties config, String name) {
+        return System.getProperty(name, config.getProperty(name));
     }
 
     private BeanManager getBeanManager() {
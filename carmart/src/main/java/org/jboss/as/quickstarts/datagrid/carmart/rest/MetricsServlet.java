@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.rest;
+
+import java.io.IOException;
+
+import javax.inject.Inject;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.jboss.as.quickstarts.datagrid.carmart.session.CacheMetrics;
+import org.jboss.as.quickstarts.datagrid.carmart.session.MetricsSample;
+
+/**
+ * Returns the cache metrics as JSON: <code>GET /metrics</code> returns the latest sample,
+ * <code>GET /metrics?history=true</code> all the samples kept, oldest first.
+ * 
+ */
+@WebServlet("/metrics")
+public class MetricsServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 3957382175406142861L;
+
+    @Inject
+    private CacheMetrics metrics;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Cache-Control", "no-cache");
+        if (Boolean.parseBoolean(req.getParameter("history"))) {
+            resp.getWriter().write(metrics.getSamplesAsJson());
+            return;
+        }
+        MetricsSample sample = metrics.getLatest();
+        if (sample == null) {
+            resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "The cache metrics are not sampled yet");
+            return;
+        }
+        resp.getWriter().write(sample.toJson());
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.annotation.PreDestroy;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.infinispan.api.BasicCache;
+
+/**
+ * 
+ * Samples the metrics of the car cache on an interval into a {@link MetricsRingBuffer}: hit ratio, read and write
+ * latency percentiles, evictions, the depth of the store queue and the number of entries on every node. The samples
+ * are exported through JMX and as JSON by MetricsServlet.
+ * 
+ * Subclasses read the counters of the cache mode they are used in. The latencies are recorded by the
+ * {@link MeteredCache} the {@link CacheContainerProvider} wraps the cache in. The interval and the number of samples
+ * kept are set in META-INF/datagrid.properties.
+ * 
+ */
+public abstract class CacheMetrics implements CacheMetricsMBean {
+
+    public static final String METRICS_INTERVAL = "datagrid.metrics.interval";
+    public static final String METRICS_SAMPLES = "datagrid.metrics.samples";
+    public static final String OBJECT_NAME_DOMAIN = "org.jboss.as.quickstarts.datagrid.carmart";
+
+    private Logger log = Logger.getLogger(this.getClass().getName());
+
+    private MetricsRingBuffer<MetricsSample> samples;
+
+    private ScheduledExecutorService sampler;
+
+    // the name this instance is registered in JMX with, null if it did not register
+    private ObjectName objectName;
+
+    private LatencyHistogram.Snapshot lastReads;
+    private LatencyHistogram.Snapshot lastWrites;
+    private long lastHits;
+    private long lastMisses;
+    private double lastHitRatio = -1;
+
+    protected abstract CacheContainerProvider getProvider();
+
+    /**
+     * @return the number of reads that found an entry
+     */
+    protected abstract long readHits();
+
+    /**
+     * @return the number of reads that did not find an entry
+     */
+    protected abstract long readMisses();
+
+    /**
+     * @return the number of evicted entries, -1 if the cache mode does not report it
+     */
+    protected abstract long readEvictions();
+
+    /**
+     * @return the number of modifications waiting to be written to the cache store, -1 without a write-behind store
+     */
+    protected abstract long readStoreQueueDepth();
+
+    protected abstract Map<String, Integer> readEntriesPerNode();
+
+    /**
+     * Takes the first sample and starts sampling in the background, it is called when the application starts.
+     * 
+     * @param deployment the name of the deployment, it tells the metrics of several deployments apart in JMX
+     */
+    public synchronized void start(String deployment) {
+        if (sampler != null) {
+            return;
+        }
+        long interval = Long.parseLong(getProvider().jdgProperty(METRICS_INTERVAL));
+        samples = new MetricsRingBuffer<MetricsSample>(Integer.parseInt(getProvider().jdgProperty(METRICS_SAMPLES)));
+        sample();
+        sampler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "carmart-metrics");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        sampler.scheduleAtFixedRate(new Runnable() {
+            public void run() {
+                try {
+                    sample();
+                } catch (RuntimeException e) {
+                    log.warning("Could not sample the cache metrics: " + e.getMessage());
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = objectName(deployment);
+            if (server.isRegistered(name)) {
+                log.warning("Another instance of the cache metrics is registered in JMX as " + name);
+            } else {
+                server.registerMBean(new StandardMBean(this, CacheMetricsMBean.class), name);
+                objectName = name;
+            }
+        } catch (JMException e) {
+            log.warning("Could not register the cache metrics in JMX: " + e.getMessage());
+        }
+        log.info("=== Sampling cache metrics every " + interval + " ms ===");
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (sampler == null) {
+            return;
+        }
+        sampler.shutdownNow();
+        sampler = null;
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException e) {
+                // unregistered already
+            }
+            objectName = null;
+        }
+    }
+
+    private static ObjectName objectName(String deployment) throws MalformedObjectNameException {
+        return new ObjectName(OBJECT_NAME_DOMAIN + ":type=CacheMetrics,deployment=" + ObjectName.quote(deployment)
+                + ",cache=" + ObjectName.quote(CarManager.CACHE_NAME));
+    }
+
+    /**
+     * @return the latest sample, null before the metrics are started
+     */
+    public MetricsSample getLatest() {
+        return samples == null ? null : samples.getLatest();
+    }
+
+    /**
+     * @return the samples kept, oldest first
+     */
+    public List<MetricsSample> getSamples() {
+        return samples == null ? Collections.<MetricsSample> emptyList() : samples.toList();
+    }
+
+    synchronized void sample() {
+        BasicCache<String, Object> cache = getProvider().getCacheContainer().getCache(CarManager.CACHE_NAME);
+        LatencyHistogram.Snapshot reads = ((MeteredCache<String, Object>) cache).getReadLatency().snapshot();
+        LatencyHistogram.Snapshot writes = ((MeteredCache<String, Object>) cache).getWriteLatency().snapshot();
+        long hits = readHits();
+        long misses = readMisses();
+        // the hit ratio of the interval, the previous one is kept while there are no reads
+        long lookups = (hits - lastHits) + (misses - lastMisses);
+        if (lookups > 0) {
+            lastHitRatio = (double) (hits - lastHits) / lookups;
+        }
+        MetricsSample sample = new MetricsSample(System.currentTimeMillis(), lastHitRatio,
+                lastReads == null ? reads : reads.minus(lastReads), lastWrites == null ? writes
+                        : writes.minus(lastWrites), readEvictions(), readStoreQueueDepth(), readEntriesPerNode());
+        lastReads = reads;
+        lastWrites = writes;
+        lastHits = hits;
+        lastMisses = misses;
+        samples.add(sample);
+    }
+
+    public long getSampleTimestamp() {
+        MetricsSample sample = getLatest();
+        return sample == null ? -1 : sample.getTimestamp();
+    }
+
+    public double getHitRatio() {
+        MetricsSample sample = getLatest();
+        return sample == null ? -1 : sample.getHitRatio();
+    }
+
+    public long getReadLatencyAverage() {
+        MetricsSample sample = getLatest();
+        return sample == null ? -1 : sample.getReadLatencyAverage();
+    }
+
+    public long getReadLatency95th() {
+        MetricsSample sample = getLatest();
+        return sample == null ? -1 : sample.getReadLatency95th();
+    }
+
+    public long getReadLatency99th() {
+        MetricsSample sample = getLatest();
+        return sample == null ? -1 : sample.getReadLatency99th();
+    }
+
+    public long getWriteLatencyAverage() {
+        MetricsSample sample = getLatest();
+        return sample == null ? -1 : sample.getWriteLatencyAverage();
+    }
+
+    public long getWriteLatency95th() {
+        MetricsSample sample = getLatest();
+        return sample == null ? -1 : sample.getWriteLatency95th();
+    }
+
+    public long getWriteLatency99th() {
+        MetricsSample sample = getLatest();
+        return sample == null ? -1 : sample.getWriteLatency99th();
+    }
+
+    public long getEvictions() {
+        MetricsSample sample = getLatest();
+        return sample == null ? -1 : sample.getEvictions();
+    }
+
+    public long getStoreQueueDepth() {
+        MetricsSample sample = getLatest();
+        return sample == null ? -1 : sample.getStoreQueueDepth();
+    }
+
+    public String getEntriesPerNode() {
+        MetricsSample sample = getLatest();
+        return sample == null ? "" : sample.getEntriesPerNode().toString();
+    }
+
+    public String getSamplesAsJson() {
+        StringBuilder json = new StringBuilder("[");
+        for (Iterator<MetricsSample> i = getSamples().iterator(); i.hasNext();) {
+            json.append(i.next().toJson());
+            if (i.hasNext()) {
+                json.append(',');
+            }
+        }
+        return json.append(']').toString();
+    }
+}
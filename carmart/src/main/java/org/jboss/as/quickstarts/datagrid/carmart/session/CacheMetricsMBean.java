@@ -0,0 +1,52 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+/**
+ * 
+ * JMX view of the latest sample taken by {@link CacheMetrics}, registered as
+ * <code>org.jboss.as.quickstarts.datagrid.carmart:type=CacheMetrics,deployment="...",cache="carcache"</code>.
+ * Latencies are in microseconds.
+ * 
+ */
+public interface CacheMetricsMBean {
+
+    public long getSampleTimestamp();
+
+    public double getHitRatio();
+
+    public long getReadLatencyAverage();
+
+    public long getReadLatency95th();
+
+    public long getReadLatency99th();
+
+    public long getWriteLatencyAverage();
+
+    public long getWriteLatency95th();
+
+    public long getWriteLatency99th();
+
+    public long getEvictions();
+
+    public long getStoreQueueDepth();
+
+    public String getEntriesPerNode();
+
+    public String getSamplesAsJson();
+
+}
@@ -20,11 +20,11 @@ import org.infinispan.api.BasicCache;
 import org.jboss.as.quickstarts.datagrid.carmart.model.Car;
 
 import javax.enterprise.inject.Model;
+import javax.faces.context.FacesContext;
 import javax.inject.Inject;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -37,12 +37,17 @@ import java.util.List;
 public class CarManager {
     public static final String CACHE_NAME = "carcache";
     public static final String CAR_NUMBERS_KEY = "carnumbers";
+    public static final String CURSOR_PARAM = "cursor";
+    public static final int PAGE_SIZE = 20;
 
     @Inject
     private CacheContainerProvider provider;
 
     private BasicCache<String, Object> carCache;
 
+    private List<String> carList;
+    private String nextCursor;
+
     private String carId;
     private Car car = new Car();
 
@@ -52,17 +57,12 @@ public class CarManager {
     public String addNewCar() {
         carCache = provider.getCacheContainer().getCache(CACHE_NAME);
         carCache.put(CarManager.encode(car.getNumberPlate()), car);
-        List<String> carNumbers = getNumberPlateList();
-        if (carNumbers == null)
-            carNumbers = new LinkedList<String>();
-        carNumbers.add(car.getNumberPlate());
-        carCache.replace(CAR_NUMBERS_KEY, carNumbers);
+        getNumberPlateIndex().add(car.getNumberPlate());
         return "home";
     }
 
-    @SuppressWarnings("unchecked")
-    private List<String> getNumberPlateList() {
-        return (List<String>) carCache.get(CAR_NUMBERS_KEY);
+    private NumberPlateIndex getNumberPlateIndex() {
+        return new NumberPlateIndex(carCache, CAR_NUMBERS_KEY);
     }
 
     public String showCarDetails(String numberPlate) {
@@ -71,22 +71,38 @@ public class CarManager {
         return "showdetails";
     }
 
+    /**
+     * Returns the page of number plates following the cursor passed as a request parameter.
+     */
     public List<String> getCarList() {
-        // retrieve a cache
-        carCache = provider.getCacheContainer().getCache(CACHE_NAME);
-        // retrieve a list of number plates from the cache
-        return getNumberPlateList();
+        if (carList == null) {
+            // retrieve a cache
+            carCache = provider.getCacheContainer().getCache(CACHE_NAME);
+            // retrieve one page of number plates from the cache
+            NumberPlateIndex.Page page = getNumberPlateIndex().page(getCursor(), PAGE_SIZE);
+            carList = page.getNumberPlates();
+            nextCursor = page.getNextCursor();
+        }
+        return carList;
     }
 
     public String removeCar(String numberPlate) {
         carCache = provider.getCacheContainer().getCache(CACHE_NAME);
         carCache.remove(encode(numberPlate));
-        List<String> carNumbers = getNumberPlateList();
-        carNumbers.remove(numberPlate);
-        carCache.replace(CAR_NUMBERS_KEY, carNumbers);
+        getNumberPlateIndex().remove(numberPlate);
+        carList = null;
         return null;
     }
 
+    public String getCursor() {
+        return FacesContext.getCurrentInstance().getExternalContext().getRequestParameterMap().get(CURSOR_PARAM);
+    }
+
+    public String getNextCursor() {
+        getCarList();
+        return nextCursor;
+    }
+
     public void setCarId(String carId) {
         this.carId = carId;
     }
@@ -0,0 +1,360 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.api.BasicCache;
+import org.infinispan.util.concurrent.NotifyingFuture;
+
+/**
+ * 
+ * Records the latency of the reads and writes made through a {@link BasicCache} as seen by the application, including
+ * any near cache or network round trip in between. Asynchronous and bulk operations are not timed.
+ * 
+ */
+public class MeteredCache<K, V> implements BasicCache<K, V> {
+
+    private final BasicCache<K, V> delegate;
+
+    private final LatencyHistogram reads = new LatencyHistogram();
+
+    private final LatencyHistogram writes = new LatencyHistogram();
+
+    public MeteredCache(BasicCache<K, V> delegate) {
+        this.delegate = delegate;
+    }
+
+    public BasicCache<K, V> getDelegate() {
+        return delegate;
+    }
+
+    public LatencyHistogram getReadLatency() {
+        return reads;
+    }
+
+    public LatencyHistogram getWriteLatency() {
+        return writes;
+    }
+
+    public V get(Object key) {
+        long start = System.nanoTime();
+        try {
+            return delegate.get(key);
+        } finally {
+            reads.record(System.nanoTime() - start);
+        }
+    }
+
+    public boolean containsKey(Object key) {
+        long start = System.nanoTime();
+        try {
+            return delegate.containsKey(key);
+        } finally {
+            reads.record(System.nanoTime() - start);
+        }
+    }
+
+    public V put(K key, V value) {
+        long start = System.nanoTime();
+        try {
+            return delegate.put(key, value);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public V put(K key, V value, long lifespan, TimeUnit unit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.put(key, value, lifespan, unit);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public V put(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.put(key, value, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public V putIfAbsent(K key, V value) {
+        long start = System.nanoTime();
+        try {
+            return delegate.putIfAbsent(key, value);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public V putIfAbsent(K key, V value, long lifespan, TimeUnit unit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.putIfAbsent(key, value, lifespan, unit);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public V putIfAbsent(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime,
+            TimeUnit maxIdleTimeUnit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.putIfAbsent(key, value, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public void putAll(Map<? extends K, ? extends V> map) {
+        long start = System.nanoTime();
+        try {
+            delegate.putAll(map);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit unit) {
+        long start = System.nanoTime();
+        try {
+            delegate.putAll(map, lifespan, unit);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit lifespanUnit, long maxIdleTime,
+            TimeUnit maxIdleTimeUnit) {
+        long start = System.nanoTime();
+        try {
+            delegate.putAll(map, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public V replace(K key, V value) {
+        long start = System.nanoTime();
+        try {
+            return delegate.replace(key, value);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public V replace(K key, V value, long lifespan, TimeUnit unit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.replace(key, value, lifespan, unit);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public V replace(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.replace(key, value, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public boolean replace(K key, V oldValue, V newValue) {
+        long start = System.nanoTime();
+        try {
+            return delegate.replace(key, oldValue, newValue);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public boolean replace(K key, V oldValue, V value, long lifespan, TimeUnit unit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.replace(key, oldValue, value, lifespan, unit);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public boolean replace(K key, V oldValue, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime,
+            TimeUnit maxIdleTimeUnit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.replace(key, oldValue, value, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public V remove(Object key) {
+        long start = System.nanoTime();
+        try {
+            return delegate.remove(key);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public boolean remove(Object key, Object value) {
+        long start = System.nanoTime();
+        try {
+            return delegate.remove(key, value);
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public void clear() {
+        long start = System.nanoTime();
+        try {
+            delegate.clear();
+        } finally {
+            writes.record(System.nanoTime() - start);
+        }
+    }
+
+    public NotifyingFuture<V> putAsync(K key, V value) {
+        return delegate.putAsync(key, value);
+    }
+
+    public NotifyingFuture<V> putAsync(K key, V value, long lifespan, TimeUnit unit) {
+        return delegate.putAsync(key, value, lifespan, unit);
+    }
+
+    public NotifyingFuture<V> putAsync(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdle,
+            TimeUnit maxIdleUnit) {
+        return delegate.putAsync(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+    }
+
+    public NotifyingFuture<Void> putAllAsync(Map<? extends K, ? extends V> data) {
+        return delegate.putAllAsync(data);
+    }
+
+    public NotifyingFuture<Void> putAllAsync(Map<? extends K, ? extends V> data, long lifespan, TimeUnit unit) {
+        return delegate.putAllAsync(data, lifespan, unit);
+    }
+
+    public NotifyingFuture<Void> putAllAsync(Map<? extends K, ? extends V> data, long lifespan,
+            TimeUnit lifespanUnit, long maxIdle, TimeUnit maxIdleUnit) {
+        return delegate.putAllAsync(data, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+    }
+
+    public NotifyingFuture<Void> clearAsync() {
+        return delegate.clearAsync();
+    }
+
+    public NotifyingFuture<V> putIfAbsentAsync(K key, V value) {
+        return delegate.putIfAbsentAsync(key, value);
+    }
+
+    public NotifyingFuture<V> putIfAbsentAsync(K key, V value, long lifespan, TimeUnit unit) {
+        return delegate.putIfAbsentAsync(key, value, lifespan, unit);
+    }
+
+    public NotifyingFuture<V> putIfAbsentAsync(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdle,
+            TimeUnit maxIdleUnit) {
+        return delegate.putIfAbsentAsync(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+    }
+
+    public NotifyingFuture<V> removeAsync(Object key) {
+        return delegate.removeAsync(key);
+    }
+
+    public NotifyingFuture<Boolean> removeAsync(Object key, Object value) {
+        return delegate.removeAsync(key, value);
+    }
+
+    public NotifyingFuture<V> replaceAsync(K key, V value) {
+        return delegate.replaceAsync(key, value);
+    }
+
+    public NotifyingFuture<V> replaceAsync(K key, V value, long lifespan, TimeUnit unit) {
+        return delegate.replaceAsync(key, value, lifespan, unit);
+    }
+
+    public NotifyingFuture<V> replaceAsync(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdle,
+            TimeUnit maxIdleUnit) {
+        return delegate.replaceAsync(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+    }
+
+    public NotifyingFuture<Boolean> replaceAsync(K key, V oldValue, V newValue) {
+        return delegate.replaceAsync(key, oldValue, newValue);
+    }
+
+    public NotifyingFuture<Boolean> replaceAsync(K key, V oldValue, V newValue, long lifespan, TimeUnit unit) {
+        return delegate.replaceAsync(key, oldValue, newValue, lifespan, unit);
+    }
+
+    public NotifyingFuture<Boolean> replaceAsync(K key, V oldValue, V newValue, long lifespan, TimeUnit lifespanUnit,
+            long maxIdle, TimeUnit maxIdleUnit) {
+        return delegate.replaceAsync(key, oldValue, newValue, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+    }
+
+    public NotifyingFuture<V> getAsync(K key) {
+        return delegate.getAsync(key);
+    }
+
+    public boolean containsValue(Object value) {
+        return delegate.containsValue(value);
+    }
+
+    public int size() {
+        return delegate.size();
+    }
+
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    public Set<K> keySet() {
+        return delegate.keySet();
+    }
+
+    public Collection<V> values() {
+        return delegate.values();
+    }
+
+    public Set<Map.Entry<K, V>> entrySet() {
+        return delegate.entrySet();
+    }
+
+    public String getName() {
+        return delegate.getName();
+    }
+
+    public String getVersion() {
+        return delegate.getVersion();
+    }
+
+    public void start() {
+        delegate.start();
+    }
+
+    public void stop() {
+        delegate.stop();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.infinispan.api.BasicCache;
+import org.infinispan.api.BasicCacheContainer;
+
+/**
+ * 
+ * Wraps every cache returned by the underlying container in a {@link MeteredCache}.
+ * 
+ */
+public class MeteredCacheContainer implements BasicCacheContainer {
+
+    private static final String DEFAULT_CACHE_KEY = "";
+
+    private final BasicCacheContainer delegate;
+
+    private final ConcurrentMap<String, MeteredCache<?, ?>> caches = new ConcurrentHashMap<String, MeteredCache<?, ?>>();
+
+    public MeteredCacheContainer(BasicCacheContainer delegate) {
+        this.delegate = delegate;
+    }
+
+    public BasicCacheContainer getDelegate() {
+        return delegate;
+    }
+
+    public <K, V> BasicCache<K, V> getCache() {
+        return getCache(DEFAULT_CACHE_KEY);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K, V> BasicCache<K, V> getCache(String cacheName) {
+        MeteredCache<K, V> cache = (MeteredCache<K, V>) caches.get(cacheName);
+        if (cache == null) {
+            BasicCache<K, V> delegateCache = DEFAULT_CACHE_KEY.equals(cacheName) ? delegate.<K, V> getCache()
+                    : delegate.<K, V> getCache(cacheName);
+            cache = new MeteredCache<K, V>(delegateCache);
+            MeteredCache<K, V> existing = (MeteredCache<K, V>) caches.putIfAbsent(cacheName, cache);
+            if (existing != null) {
+                cache = existing;
+            }
+        }
+        return cache;
+    }
+
+    public void start() {
+        delegate.start();
+    }
+
+    public void stop() {
+        caches.clear();
+        delegate.stop();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 
+ * Fixed size buffer keeping the latest elements added to it. Writers never block each other nor the readers, the
+ * oldest element is overwritten once the buffer is full.
+ * 
+ */
+public class MetricsRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> elements;
+
+    private final AtomicLong added = new AtomicLong();
+
+    public MetricsRingBuffer(int capacity) {
+        this.elements = new AtomicReferenceArray<T>(capacity);
+    }
+
+    public void add(T element) {
+        long index = added.getAndIncrement();
+        elements.set((int) (index % elements.length()), element);
+    }
+
+    /**
+     * @return the most recently added element or null when the buffer is empty
+     */
+    public T getLatest() {
+        long index = added.get() - 1;
+        return index < 0 ? null : elements.get((int) (index % elements.length()));
+    }
+
+    /**
+     * @return the elements in the buffer, oldest first
+     */
+    public List<T> toList() {
+        long end = added.get();
+        long start = Math.max(0, end - elements.length());
+        List<T> list = new ArrayList<T>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            T element = elements.get((int) (i % elements.length()));
+            // a slot may still be empty while the element is being set
+            if (element != null) {
+                list.add(element);
+            }
+        }
+        return list;
+    }
+}
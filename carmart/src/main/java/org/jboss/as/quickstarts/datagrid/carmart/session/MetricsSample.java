@@ -0,0 +1,148 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 
+ * Cache metrics taken at one point in time by {@link CacheMetrics}. Latencies are in microseconds and cover the
+ * operations made since the previous sample. Values a cache mode does not report are -1.
+ * 
+ */
+public class MetricsSample {
+
+    private final long timestamp;
+    private final double hitRatio;
+    private final long reads;
+    private final LatencyHistogram.Snapshot readLatency;
+    private final long writes;
+    private final LatencyHistogram.Snapshot writeLatency;
+    private final long evictions;
+    private final long storeQueueDepth;
+    private final Map<String, Integer> entriesPerNode;
+
+    public MetricsSample(long timestamp, double hitRatio, LatencyHistogram.Snapshot readLatency,
+            LatencyHistogram.Snapshot writeLatency, long evictions, long storeQueueDepth,
+            Map<String, Integer> entriesPerNode) {
+        this.timestamp = timestamp;
+        this.hitRatio = hitRatio;
+        this.reads = readLatency.getCount();
+        this.readLatency = readLatency;
+        this.writes = writeLatency.getCount();
+        this.writeLatency = writeLatency;
+        this.evictions = evictions;
+        this.storeQueueDepth = storeQueueDepth;
+        this.entriesPerNode = Collections.unmodifiableMap(entriesPerNode);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return hits divided by all reads, -1 when there have been no reads yet
+     */
+    public double getHitRatio() {
+        return hitRatio;
+    }
+
+    public long getReads() {
+        return reads;
+    }
+
+    public long getReadLatencyAverage() {
+        return readLatency.getAverage();
+    }
+
+    public long getReadLatency50th() {
+        return readLatency.getPercentile(50);
+    }
+
+    public long getReadLatency95th() {
+        return readLatency.getPercentile(95);
+    }
+
+    public long getReadLatency99th() {
+        return readLatency.getPercentile(99);
+    }
+
+    public long getWrites() {
+        return writes;
+    }
+
+    public long getWriteLatencyAverage() {
+        return writeLatency.getAverage();
+    }
+
+    public long getWriteLatency50th() {
+        return writeLatency.getPercentile(50);
+    }
+
+    public long getWriteLatency95th() {
+        return writeLatency.getPercentile(95);
+    }
+
+    public long getWriteLatency99th() {
+        return writeLatency.getPercentile(99);
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getStoreQueueDepth() {
+        return storeQueueDepth;
+    }
+
+    public Map<String, Integer> getEntriesPerNode() {
+        return entriesPerNode;
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"timestamp\":").append(timestamp);
+        json.append(",\"hitRatio\":").append(hitRatio);
+        json.append(",\"reads\":").append(reads);
+        json.append(",\"readLatency\":{\"average\":").append(getReadLatencyAverage());
+        json.append(",\"p50\":").append(getReadLatency50th());
+        json.append(",\"p95\":").append(getReadLatency95th());
+        json.append(",\"p99\":").append(getReadLatency99th()).append('}');
+        json.append(",\"writes\":").append(writes);
+        json.append(",\"writeLatency\":{\"average\":").append(getWriteLatencyAverage());
+        json.append(",\"p50\":").append(getWriteLatency50th());
+        json.append(",\"p95\":").append(getWriteLatency95th());
+        json.append(",\"p99\":").append(getWriteLatency99th()).append('}');
+        json.append(",\"evictions\":").append(evictions);
+        json.append(",\"storeQueueDepth\":").append(storeQueueDepth);
+        json.append(",\"entriesPerNode\":{");
+        for (Iterator<Map.Entry<String, Integer>> i = entriesPerNode.entrySet().iterator(); i.hasNext();) {
+            Map.Entry<String, Integer> entry = i.next();
+            json.append('"').append(escape(entry.getKey())).append("\":").append(entry.getValue());
+            if (i.hasNext()) {
+                json.append(',');
+            }
+        }
+        return json.append("}}").toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -39,4 +39,20 @@ public interface StatisticsProvider {
 
     public String getRemoveHits();
 
+    public boolean isNearCacheEnabled();
+
+    public String getNearCacheHits();
+
+    public String getNearCacheMisses();
+
+    public String getNearCacheEntries();
+
+    public boolean isWriteBehindEnabled();
+
+    public String getStoreQueueDepth();
+
+    public String getStoreFlushLatency();
+
+    public String getStoreFailures();
+
 }
@@ -0,0 +1,425 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.infinispan.api.BasicCache;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+import org.infinispan.util.concurrent.NotifyingFuture;
+
+/**
+ * 
+ * Bounded client-side cache sitting in front of a remote {@link BasicCache}. Reads are served locally
+ * when possible, writes always go to the remote cache and invalidate the local copy.
+ * 
+ * The Hot Rod client in this version cannot receive remote cache events, so entries written by other
+ * clients are picked up once the local copy's lifespan runs out. Each entry is kept for at most
+ * <code>lifespan</code> milliseconds (zero or less keeps it until it is evicted or invalidated).
+ * 
+ */
+public class NearCache<K, V> implements BasicCache<K, V> {
+
+    private final BasicCache<K, V> delegate;
+
+    private final BoundedConcurrentHashMap<Object, NearEntry<V>> entries;
+
+    private final long lifespan;
+
+    // bumped on every write so that a read racing with a write does not cache the old value
+    private final AtomicLong writeCount = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    public NearCache(BasicCache<K, V> delegate, int maxEntries, Eviction eviction, long lifespan) {
+        this.delegate = delegate;
+        this.entries = new BoundedConcurrentHashMap<Object, NearEntry<V>>(maxEntries, 16, eviction);
+        this.lifespan = lifespan;
+    }
+
+    public BasicCache<K, V> getDelegate() {
+        return delegate;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getNearEntries() {
+        return entries.size();
+    }
+
+    public V get(Object key) {
+        NearEntry<V> entry = entries.get(key);
+        if (entry != null) {
+            if (!entry.isExpired()) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            entries.remove(key, entry);
+        }
+        misses.incrementAndGet();
+        long writes = writeCount.get();
+        V value = delegate.get(key);
+        if (value != null && writes == writeCount.get()) {
+            entries.put(key, new NearEntry<V>(value, lifespan));
+            if (writes != writeCount.get()) {
+                entries.remove(key);
+            }
+        }
+        return value;
+    }
+
+    public boolean containsKey(Object key) {
+        NearEntry<V> entry = entries.get(key);
+        if (entry != null && !entry.isExpired()) {
+            return true;
+        }
+        return delegate.containsKey(key);
+    }
+
+    public V put(K key, V value) {
+        try {
+            return delegate.put(key, value);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public V put(K key, V value, long lifespan, TimeUnit unit) {
+        try {
+            return delegate.put(key, value, lifespan, unit);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public V put(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
+        try {
+            return delegate.put(key, value, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public V putIfAbsent(K key, V value) {
+        try {
+            return delegate.putIfAbsent(key, value);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public V putIfAbsent(K key, V value, long lifespan, TimeUnit unit) {
+        try {
+            return delegate.putIfAbsent(key, value, lifespan, unit);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public V putIfAbsent(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime,
+            TimeUnit maxIdleTimeUnit) {
+        try {
+            return delegate.putIfAbsent(key, value, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public void putAll(Map<? extends K, ? extends V> map) {
+        try {
+            delegate.putAll(map);
+        } finally {
+            invalidateAll(map.keySet());
+        }
+    }
+
+    public void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit unit) {
+        try {
+            delegate.putAll(map, lifespan, unit);
+        } finally {
+            invalidateAll(map.keySet());
+        }
+    }
+
+    public void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit lifespanUnit, long maxIdleTime,
+            TimeUnit maxIdleTimeUnit) {
+        try {
+            delegate.putAll(map, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+        } finally {
+            invalidateAll(map.keySet());
+        }
+    }
+
+    public V replace(K key, V value) {
+        try {
+            return delegate.replace(key, value);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public V replace(K key, V value, long lifespan, TimeUnit unit) {
+        try {
+            return delegate.replace(key, value, lifespan, unit);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public V replace(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
+        try {
+            return delegate.replace(key, value, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public boolean replace(K key, V oldValue, V newValue) {
+        try {
+            return delegate.replace(key, oldValue, newValue);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public boolean replace(K key, V oldValue, V value, long lifespan, TimeUnit unit) {
+        try {
+            return delegate.replace(key, oldValue, value, lifespan, unit);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public boolean replace(K key, V oldValue, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleTime,
+            TimeUnit maxIdleTimeUnit) {
+        try {
+            return delegate.replace(key, oldValue, value, lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public V remove(Object key) {
+        try {
+            return delegate.remove(key);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public boolean remove(Object key, Object value) {
+        try {
+            return delegate.remove(key, value);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    public void clear() {
+        try {
+            delegate.clear();
+        } finally {
+            writeCount.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    // asynchronous writes drop the local copy up front, a concurrent read may still cache the old
+    // value until its lifespan runs out
+
+    public NotifyingFuture<V> putAsync(K key, V value) {
+        invalidate(key);
+        return delegate.putAsync(key, value);
+    }
+
+    public NotifyingFuture<V> putAsync(K key, V value, long lifespan, TimeUnit unit) {
+        invalidate(key);
+        return delegate.putAsync(key, value, lifespan, unit);
+    }
+
+    public NotifyingFuture<V> putAsync(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdle,
+            TimeUnit maxIdleUnit) {
+        invalidate(key);
+        return delegate.putAsync(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+    }
+
+    public NotifyingFuture<Void> putAllAsync(Map<? extends K, ? extends V> data) {
+        invalidateAll(data.keySet());
+        return delegate.putAllAsync(data);
+    }
+
+    public NotifyingFuture<Void> putAllAsync(Map<? extends K, ? extends V> data, long lifespan, TimeUnit unit) {
+        invalidateAll(data.keySet());
+        return delegate.putAllAsync(data, lifespan, unit);
+    }
+
+    public NotifyingFuture<Void> putAllAsync(Map<? extends K, ? extends V> data, long lifespan,
+            TimeUnit lifespanUnit, long maxIdle, TimeUnit maxIdleUnit) {
+        invalidateAll(data.keySet());
+        return delegate.putAllAsync(data, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+    }
+
+    public NotifyingFuture<Void> clearAsync() {
+        writeCount.incrementAndGet();
+        entries.clear();
+        return delegate.clearAsync();
+    }
+
+    public NotifyingFuture<V> putIfAbsentAsync(K key, V value) {
+        invalidate(key);
+        return delegate.putIfAbsentAsync(key, value);
+    }
+
+    public NotifyingFuture<V> putIfAbsentAsync(K key, V value, long lifespan, TimeUnit unit) {
+        invalidate(key);
+        return delegate.putIfAbsentAsync(key, value, lifespan, unit);
+    }
+
+    public NotifyingFuture<V> putIfAbsentAsync(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdle,
+            TimeUnit maxIdleUnit) {
+        invalidate(key);
+        return delegate.putIfAbsentAsync(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+    }
+
+    public NotifyingFuture<V> removeAsync(Object key) {
+        invalidate(key);
+        return delegate.removeAsync(key);
+    }
+
+    public NotifyingFuture<Boolean> removeAsync(Object key, Object value) {
+        invalidate(key);
+        return delegate.removeAsync(key, value);
+    }
+
+    public NotifyingFuture<V> replaceAsync(K key, V value) {
+        invalidate(key);
+        return delegate.replaceAsync(key, value);
+    }
+
+    public NotifyingFuture<V> replaceAsync(K key, V value, long lifespan, TimeUnit unit) {
+        invalidate(key);
+        return delegate.replaceAsync(key, value, lifespan, unit);
+    }
+
+    public NotifyingFuture<V> replaceAsync(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdle,
+            TimeUnit maxIdleUnit) {
+        invalidate(key);
+        return delegate.replaceAsync(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+    }
+
+    public NotifyingFuture<Boolean> replaceAsync(K key, V oldValue, V newValue) {
+        invalidate(key);
+        return delegate.replaceAsync(key, oldValue, newValue);
+    }
+
+    public NotifyingFuture<Boolean> replaceAsync(K key, V oldValue, V newValue, long lifespan, TimeUnit unit) {
+        invalidate(key);
+        return delegate.replaceAsync(key, oldValue, newValue, lifespan, unit);
+    }
+
+    public NotifyingFuture<Boolean> replaceAsync(K key, V oldValue, V newValue, long lifespan, TimeUnit lifespanUnit,
+            long maxIdle, TimeUnit maxIdleUnit) {
+        invalidate(key);
+        return delegate.replaceAsync(key, oldValue, newValue, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
+    }
+
+    public NotifyingFuture<V> getAsync(K key) {
+        return delegate.getAsync(key);
+    }
+
+    public boolean containsValue(Object value) {
+        return delegate.containsValue(value);
+    }
+
+    public int size() {
+        return delegate.size();
+    }
+
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    public Set<K> keySet() {
+        return delegate.keySet();
+    }
+
+    public Collection<V> values() {
+        return delegate.values();
+    }
+
+    public Set<Map.Entry<K, V>> entrySet() {
+        return delegate.entrySet();
+    }
+
+    public String getName() {
+        return delegate.getName();
+    }
+
+    public String getVersion() {
+        return delegate.getVersion();
+    }
+
+    public void start() {
+        delegate.start();
+    }
+
+    public void stop() {
+        entries.clear();
+        delegate.stop();
+    }
+
+    private void invalidate(Object key) {
+        writeCount.incrementAndGet();
+        entries.remove(key);
+    }
+
+    private void invalidateAll(Collection<?> keys) {
+        writeCount.incrementAndGet();
+        for (Object key : keys) {
+            entries.remove(key);
+        }
+    }
+
+    private static class NearEntry<V> {
+
+        private final V value;
+
+        private final long expires;
+
+        NearEntry(V value, long lifespan) {
+            this.value = value;
+            this.expires = lifespan > 0 ? System.currentTimeMillis() + lifespan : Long.MAX_VALUE;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expires;
+        }
+    }
+}
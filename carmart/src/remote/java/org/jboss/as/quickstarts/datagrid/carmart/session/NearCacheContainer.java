@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.infinispan.api.BasicCache;
+import org.infinispan.api.BasicCacheContainer;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+
+/**
+ * 
+ * Wraps every cache returned by the underlying container in a {@link NearCache}.
+ * 
+ */
+public class NearCacheContainer implements BasicCacheContainer {
+
+    private static final String DEFAULT_CACHE_KEY = "";
+
+    private final BasicCacheContainer delegate;
+
+    private final int maxEntries;
+
+    private final Eviction eviction;
+
+    private final long lifespan;
+
+    private final ConcurrentMap<String, NearCache<?, ?>> caches = new ConcurrentHashMap<String, NearCache<?, ?>>();
+
+    public NearCacheContainer(BasicCacheContainer delegate, int maxEntries, Eviction eviction, long lifespan) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.eviction = eviction;
+        this.lifespan = lifespan;
+    }
+
+    public <K, V> BasicCache<K, V> getCache() {
+        return getCache(DEFAULT_CACHE_KEY);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K, V> BasicCache<K, V> getCache(String cacheName) {
+        NearCache<K, V> cache = (NearCache<K, V>) caches.get(cacheName);
+        if (cache == null) {
+            BasicCache<K, V> remote = DEFAULT_CACHE_KEY.equals(cacheName) ? delegate.<K, V> getCache() : delegate
+                    .<K, V> getCache(cacheName);
+            cache = new NearCache<K, V>(remote, maxEntries, eviction, lifespan);
+            NearCache<K, V> existing = (NearCache<K, V>) caches.putIfAbsent(cacheName, cache);
+            if (existing != null) {
+                cache = existing;
+            }
+        }
+        return cache;
+    }
+
+    public void start() {
+        delegate.start();
+    }
+
+    public void stop() {
+        caches.clear();
+        delegate.stop();
+    }
+}
@@ -19,8 +19,11 @@ package org.jboss.as.quickstarts.datagrid.carmart.session;
 import java.util.logging.Logger;
 import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
+import org.infinispan.api.BasicCache;
 import org.infinispan.api.BasicCacheContainer;
+import org.infinispan.client.hotrod.RemoteCache;
 import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
 import org.jboss.as.quickstarts.datagrid.carmart.session.CacheContainerProvider;
 
 
@@ -30,12 +33,20 @@ import org.jboss.as.quickstarts.datagrid.carmart.session.CacheContainerProvider;
  * JBoss Data Grid server needs to be running and configured properly 
  * so that HotRod client can remotely connect to it - this is called client-server mode.
  * 
+ * When <code>datagrid.nearcache.enabled</code> is set, caches are fronted by a bounded {@link NearCache}.
+ * Every cache is wrapped in a {@link MeteredCache}.
+ * 
  * @author Martin Gencur
  * 
  */
 @ApplicationScoped
 public class RemoteCacheContainerProvider extends CacheContainerProvider {
 
+    public static final String NEAR_CACHE_ENABLED = "datagrid.nearcache.enabled";
+    public static final String NEAR_CACHE_MAX_ENTRIES = "datagrid.nearcache.maxentries";
+    public static final String NEAR_CACHE_EVICTION = "datagrid.nearcache.eviction";
+    public static final String NEAR_CACHE_LIFESPAN = "datagrid.nearcache.lifespan";
+
     private Logger log = Logger.getLogger(this.getClass().getName());
 
     private BasicCacheContainer manager;
@@ -44,10 +55,43 @@ public class RemoteCacheContainerProvider extends CacheContainerProvider {
         if (manager == null) {
             manager = new RemoteCacheManager(jdgProperty(DATAGRID_HOST) + ":" + jdgProperty(HOTROD_PORT), true);
             log.info("=== Using RemoteCacheManager (Hot Rod) ===");
+            if (Boolean.parseBoolean(jdgProperty(NEAR_CACHE_ENABLED))) {
+                int maxEntries = Integer.parseInt(jdgProperty(NEAR_CACHE_MAX_ENTRIES));
+                Eviction eviction = Eviction.valueOf(jdgProperty(NEAR_CACHE_EVICTION));
+                long lifespan = Long.parseLong(jdgProperty(NEAR_CACHE_LIFESPAN));
+                manager = new NearCacheContainer(manager, maxEntries, eviction, lifespan);
+                log.info("=== Near cache enabled: " + maxEntries + " entries, " + eviction + ", lifespan " + lifespan
+                        + " ms ===");
+            }
+            manager = new MeteredCacheContainer(manager); // Records the latency of the reads and writes for CacheMetrics
         }
         return manager;
     }
 
+    /**
+     * @return the {@link NearCache} behind the {@link MeteredCache} of a cache from this container, or null if the near
+     *         cache is not enabled
+     */
+    @SuppressWarnings("unchecked")
+    static NearCache<String, Object> getNearCache(BasicCache<String, Object> cache) {
+        cache = withoutMetering(cache);
+        return cache instanceof NearCache ? (NearCache<String, Object>) cache : null;
+    }
+
+    /**
+     * @return the Hot Rod cache behind the {@link MeteredCache} and {@link NearCache} of a cache from this container
+     */
+    @SuppressWarnings("unchecked")
+    static RemoteCache<String, Object> getRemoteCache(BasicCache<String, Object> cache) {
+        NearCache<String, Object> nearCache = getNearCache(cache);
+        return (RemoteCache<String, Object>) (nearCache != null ? nearCache.getDelegate() : withoutMetering(cache));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BasicCache<String, Object> withoutMetering(BasicCache<String, Object> cache) {
+        return cache instanceof MeteredCache ? ((MeteredCache<String, Object>) cache).getDelegate() : cache;
+    }
+
     @PreDestroy
     public void cleanUp() {
         manager.stop();
@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+import java.util.Collections;
+import java.util.Map;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.infinispan.api.BasicCache;
+import org.infinispan.client.hotrod.ServerStatistics;
+
+/**
+ * 
+ * {@link CacheMetrics} of the cache on the JDG server - client-server mode. The Hot Rod client reports the statistics
+ * of the server it talks to, evictions and the store queue are not part of them.
+ * 
+ */
+@Named("metrics")
+@ApplicationScoped
+public class RemoteCacheMetrics extends CacheMetrics {
+
+    @Inject
+    private CacheContainerProvider provider;
+
+    protected CacheContainerProvider getProvider() {
+        return provider;
+    }
+
+    private String stat(String name) {
+        BasicCache<String, Object> cache = provider.getCacheContainer().getCache(CarManager.CACHE_NAME);
+        return RemoteCacheContainerProvider.getRemoteCache(cache).stats().getStatsMap().get(name);
+    }
+
+    protected long readHits() {
+        return Long.parseLong(stat(ServerStatistics.HITS));
+    }
+
+    protected long readMisses() {
+        return Long.parseLong(stat(ServerStatistics.MISSES));
+    }
+
+    protected long readEvictions() {
+        return -1;
+    }
+
+    protected long readStoreQueueDepth() {
+        return -1;
+    }
+
+    protected Map<String, Integer> readEntriesPerNode() {
+        String server = provider.jdgProperty(CacheContainerProvider.DATAGRID_HOST) + ":"
+                + provider.jdgProperty(CacheContainerProvider.HOTROD_PORT);
+        return Collections.singletonMap(server, Integer.valueOf(stat(ServerStatistics.CURRENT_NR_OF_ENTRIES)));
+    }
+}
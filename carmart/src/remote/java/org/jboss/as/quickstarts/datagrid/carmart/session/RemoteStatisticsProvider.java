@@ -23,7 +23,7 @@ import javax.enterprise.inject.Alternative;
 import javax.enterprise.inject.Specializes;
 import javax.inject.Inject;
 import javax.inject.Named;
-import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.api.BasicCache;
 import org.infinispan.client.hotrod.ServerStatistics;
 import org.jboss.as.quickstarts.datagrid.carmart.session.CacheContainerProvider;
 import org.jboss.as.quickstarts.datagrid.carmart.session.CarManager;
@@ -39,10 +39,13 @@ public class RemoteStatisticsProvider implements StatisticsProvider {
 
     private Map<String, String> stats;
 
+    private NearCache<String, Object> nearCache;
+
     @PostConstruct
     public void getStatsObject() {
-        RemoteCache<String, Object> carCache = (RemoteCache) provider.getCacheContainer().getCache(CarManager.CACHE_NAME);
-        stats = carCache.stats().getStatsMap();
+        BasicCache<String, Object> cache = provider.getCacheContainer().getCache(CarManager.CACHE_NAME);
+        nearCache = RemoteCacheContainerProvider.getNearCache(cache);
+        stats = RemoteCacheContainerProvider.getRemoteCache(cache).stats().getStatsMap();
     }
 
     public String getRetrievals() {
@@ -68,4 +71,36 @@ public class RemoteStatisticsProvider implements StatisticsProvider {
     public String getRemoveHits() {
         return stats.get(ServerStatistics.REMOVE_HITS);
     }
+
+    public boolean isNearCacheEnabled() {
+        return nearCache != null;
+    }
+
+    public String getNearCacheHits() {
+        return nearCache == null ? "" : String.valueOf(nearCache.getHits());
+    }
+
+    public String getNearCacheMisses() {
+        return nearCache == null ? "" : String.valueOf(nearCache.getMisses());
+    }
+
+    public String getNearCacheEntries() {
+        return nearCache == null ? "" : String.valueOf(nearCache.getNearEntries());
+    }
+
+    public boolean isWriteBehindEnabled() {
+        return false;
+    }
+
+    public String getStoreQueueDepth() {
+        return "";
+    }
+
+    public String getStoreFlushLatency() {
+        return "";
+    }
+
+    public String getStoreFailures() {
+        return "";
+    }
 }
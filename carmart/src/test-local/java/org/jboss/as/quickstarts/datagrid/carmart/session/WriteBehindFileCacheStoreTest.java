@@ -0,0 +1,301 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.carmart.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A plain unit test, the store writes behind an in-memory store that can be held up or made to fail.
+ */
+public class WriteBehindFileCacheStoreTest {
+
+    private FakeStore delegate;
+
+    private WriteBehindFileCacheStore store;
+
+    private boolean running;
+
+    @Before
+    public void createDelegate() {
+        delegate = new FakeStore();
+    }
+
+    @After
+    public void stopStore() throws Exception {
+        if (running) {
+            delegate.release();
+            store.stop();
+        }
+    }
+
+    @Test
+    public void testRepeatedWritesAreCoalesced() throws Exception {
+        start(16, 10000);
+        holdFlushThread();
+
+        store.store(entry("car", 1));
+        store.store(entry("car", 2));
+        store.store(entry("car", 3));
+        assertEquals(2, store.getCoalescedCount());
+
+        delegate.release();
+        stop();
+        assertEquals(1, delegate.writes("car"));
+        assertEquals(3, delegate.value("car"));
+    }
+
+    @Test
+    public void testFailedWriteIsRetried() throws Exception {
+        start(16, 10000);
+        delegate.failNext(2);
+
+        store.store(entry("car", 1));
+
+        // waits for the retries, 100 and 200 ms after the failures
+        stop();
+        assertEquals(2, store.getFailureCount());
+        assertEquals(1, delegate.writes("car"));
+        assertEquals(1, delegate.value("car"));
+        assertEquals(0, store.getQueueDepth());
+    }
+
+    @Test
+    public void testLoadSeesPendingModifications() throws Exception {
+        start(16, 10000);
+        holdFlushThread();
+
+        InternalCacheEntry car = entry("car", 1);
+        store.store(car);
+        assertSame(car, store.load("car"));
+        assertTrue(store.containsKey("car"));
+        assertNull(delegate.value("car"));
+
+        store.remove("car");
+        assertNull(store.load("car"));
+        assertFalse(store.containsKey("car"));
+    }
+
+    @Test
+    public void testStopWritesEverythingPending() throws Exception {
+        start(16, 10000);
+        holdFlushThread();
+        for (int i = 0; i < 10; i++) {
+            store.store(entry("car" + i, i));
+        }
+        assertEquals(11, store.getQueueDepth());
+
+        // the flush thread goes on while stop is waiting for it
+        delegate.releaseAfter(100);
+        stop();
+        assertEquals(0, store.getQueueDepth());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, delegate.value("car" + i));
+        }
+    }
+
+    @Test
+    public void testWriteFailsWhenTheQueueStaysFull() throws Exception {
+        start(1, 100);
+        // the held write takes the only place in the queue
+        holdFlushThread();
+
+        try {
+            store.store(entry("car", 1));
+            fail("the queue is full");
+        } catch (CacheLoaderException expected) {
+        }
+        assertNull(store.load("car"));
+    }
+
+    private void start(int queueSize, long queueTimeout) throws Exception {
+        WriteBehindFileCacheStoreConfig config = new WriteBehindFileCacheStoreConfig();
+        config.setModificationQueueSize(queueSize);
+        config.setModificationQueueTimeout(queueTimeout);
+        store = new WriteBehindFileCacheStore(delegate.proxy());
+        store.init(config, null, null);
+        store.start();
+        running = true;
+    }
+
+    private void stop() throws Exception {
+        running = false;
+        store.stop();
+    }
+
+    // keeps the flush thread busy writing a first entry, the entries stored next stay pending until it is released
+    private void holdFlushThread() throws Exception {
+        delegate.hold();
+        store.store(entry("held", 0));
+        assertTrue(delegate.awaitHeld());
+    }
+
+    private static InternalCacheEntry entry(final Object key, final Object value) {
+        return (InternalCacheEntry) Proxy.newProxyInstance(InternalCacheEntry.class.getClassLoader(),
+                new Class<?>[] { InternalCacheEntry.class }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getKey")) {
+                            return key;
+                        }
+                        if (method.getName().equals("getValue")) {
+                            return value;
+                        }
+                        return objectMethod(proxy, method, args);
+                    }
+                });
+    }
+
+    private static Object objectMethod(Object proxy, Method method, Object[] args) {
+        if (method.getName().equals("equals")) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode")) {
+            return System.identityHashCode(proxy);
+        }
+        if (method.getName().equals("toString")) {
+            return "proxy@" + System.identityHashCode(proxy);
+        }
+        // the rest of the store interface is not used by the tests
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    /**
+     * An in-memory {@link CacheStore} that counts the writes of every key, and can hold up or fail writes.
+     */
+    private static class FakeStore implements InvocationHandler {
+
+        private final ConcurrentMap<Object, Object> values = new ConcurrentHashMap<Object, Object>();
+
+        private final ConcurrentMap<Object, AtomicInteger> writes = new ConcurrentHashMap<Object, AtomicInteger>();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private volatile CountDownLatch held = new CountDownLatch(0);
+
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+
+        CacheStore proxy() {
+            return (CacheStore) Proxy.newProxyInstance(CacheStore.class.getClassLoader(),
+                    new Class<?>[] { CacheStore.class }, this);
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("store")) {
+                InternalCacheEntry entry = (InternalCacheEntry) args[0];
+                write(entry.getKey(), entry.getValue());
+                return null;
+            }
+            if (name.equals("remove") && method.getParameterTypes()[0] == Object.class) {
+                write(args[0], null);
+                return true;
+            }
+            if (name.equals("load") && method.getParameterTypes()[0] == Object.class) {
+                Object value = values.get(args[0]);
+                return value == null ? null : entry(args[0], value);
+            }
+            if (name.equals("containsKey")) {
+                return values.containsKey(args[0]);
+            }
+            return objectMethod(proxy, method, args);
+        }
+
+        private void write(Object key, Object value) throws Exception {
+            held.countDown();
+            gate.await();
+            if (failures.getAndDecrement() > 0) {
+                throw new CacheLoaderException("No space left on device");
+            }
+            if (value == null) {
+                values.remove(key);
+            } else {
+                values.put(key, value);
+            }
+            writes.putIfAbsent(key, new AtomicInteger());
+            writes.get(key).incrementAndGet();
+        }
+
+        void hold() {
+            gate = new CountDownLatch(1);
+            held = new CountDownLatch(1);
+        }
+
+        boolean awaitHeld() throws InterruptedException {
+            return held.await(5, TimeUnit.SECONDS);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        void releaseAfter(final long millis) {
+            new Thread() {
+                public void run() {
+                    try {
+                        Thread.sleep(millis);
+                    } catch (InterruptedException e) {
+                        // released early
+                    }
+                    release();
+                }
+            }.start();
+        }
+
+        void failNext(int count) {
+            failures.set(count);
+        }
+
+        Object value(Object key) {
+            return values.get(key);
+        }
+
+        int writes(Object key) {
+            AtomicInteger count = writes.get(key);
+            return count == null ? 0 : count.get();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid;
+
+import java.io.Serializable;
+
+import javax.enterprise.context.SessionScoped;
+import javax.inject.Inject;
+
+/**
+ * Keeps the {@link CacheEntryPager} of a user between requests, so that the next page continues the runs the cluster
+ * nodes returned for the previous one.
+ * 
+ */
+@SessionScoped
+public class CacheEntryBrowser implements Serializable {
+
+    private static final long serialVersionUID = 5368134785301249271L;
+
+    @Inject
+    private MyCacheManagerProvider cacheManagerProvider;
+
+    // read again after the session has been passivated
+    private transient CacheEntryPager pager;
+
+    public synchronized CacheEntryPager.Page page(String afterKey, int size) {
+        if (pager == null) {
+            pager = new CacheEntryPager(cacheManagerProvider.getCacheManager().<String, String> getCache());
+        }
+        return pager.page(afterKey, size);
+    }
+}
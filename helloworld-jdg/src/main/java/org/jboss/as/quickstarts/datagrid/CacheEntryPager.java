@@ -0,0 +1,292 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.infinispan.Cache;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distexec.DefaultExecutorService;
+import org.infinispan.distexec.DistributedCallable;
+import org.infinispan.distribution.DistributionManager;
+import org.infinispan.remoting.transport.Address;
+
+/**
+ * Reads the entries of a distributed cache page by page, in key order, without looking up every key remotely.
+ * <p>
+ * Each cluster node is asked, with a distributed task, for a sorted run of the entries it is the primary owner of,
+ * {@value #RUN_PAGES} pages long. The pager merges the runs of all nodes into pages and only asks a node for its next
+ * run once the entries of its previous one have been returned, so a node scans its data container once per run rather
+ * than once per page. The runs continue from where the previous page ended; a page starting anywhere else, or a change
+ * of the cluster members, makes every node start a new run.
+ * </p>
+ * <p>
+ * A pager keeps the runs between pages and is not thread safe, a reader going through the pages keeps one of its own.
+ * Entries written while the pages are read show up if their keys sort after the end of the run of their node.
+ * </p>
+ * 
+ */
+public class CacheEntryPager {
+
+    /**
+     * The length of the run each node returns at once, in pages.
+     */
+    public static final int RUN_PAGES = 5;
+
+    private final Cache<String, String> cache;
+
+    // the entries read from each node and not returned yet
+    private final Map<Address, NodeRun> runs = new HashMap<Address, NodeRun>();
+
+    private List<Address> members;
+
+    // the last key returned, the runs continue from it
+    private String position;
+
+    public CacheEntryPager(Cache<String, String> cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @param afterKey the last key of the previous page, or null for the first page
+     */
+    public Page page(String afterKey, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The page size must be positive");
+        }
+        List<Address> current = members();
+        if (!current.equals(members) || runs.isEmpty() || !equal(afterKey, position)) {
+            runs.clear();
+            for (Address member : current) {
+                runs.put(member, new NodeRun(afterKey));
+            }
+            members = current;
+        }
+        TreeMap<String, String> entries = new TreeMap<String, String>();
+        boolean hasMore;
+        while (true) {
+            readRuns(size * RUN_PAGES);
+            NodeRun next = null;
+            for (NodeRun run : runs.values()) {
+                if (!run.entries.isEmpty()
+                        && (next == null || run.entries.firstKey().compareTo(next.entries.firstKey()) < 0)) {
+                    next = run;
+                }
+            }
+            if (next == null || entries.size() == size) {
+                // an entry left after the page is full tells that there is another page
+                hasMore = next != null;
+                break;
+            }
+            Map.Entry<String, String> entry = next.entries.pollFirstEntry();
+            entries.put(entry.getKey(), entry.getValue());
+        }
+        position = entries.isEmpty() ? afterKey : entries.lastKey();
+        return new Page(entries, hasMore ? entries.lastKey() : null);
+    }
+
+    /**
+     * Asks every node whose run has been used up for its next one, all of them at once.
+     */
+    private void readRuns(int runSize) {
+        Map<NodeRun, Future<TreeMap<String, String>>> results = new HashMap<NodeRun, Future<TreeMap<String, String>>>();
+        DefaultExecutorService executor = null;
+        try {
+            for (Map.Entry<Address, NodeRun> run : runs.entrySet()) {
+                if (run.getValue().entries.isEmpty() && !run.getValue().exhausted) {
+                    if (executor == null) {
+                        executor = new DefaultExecutorService(cache);
+                    }
+                    results.put(run.getValue(), executor.submit(run.getKey(),
+                            new PrimaryEntriesTask(run.getValue().lastKey, runSize)));
+                }
+            }
+            for (Map.Entry<NodeRun, Future<TreeMap<String, String>>> result : results.entrySet()) {
+                result.getKey().add(result.getValue().get(), runSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    // the nodes the entries of the cache are spread over
+    private List<Address> members() {
+        DistributionManager distribution = cache.getAdvancedCache().getDistributionManager();
+        if (distribution == null) {
+            return Collections.singletonList(cache.getCacheManager().getAddress());
+        }
+        return new ArrayList<Address>(distribution.getConsistentHash().getMembers());
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Iterates over all entries, reading them one page at a time.
+     */
+    public Iterator<Map.Entry<String, String>> iterator(final int pageSize) {
+        return new Iterator<Map.Entry<String, String>>() {
+            private Page page = page(null, pageSize);
+            private Iterator<Map.Entry<String, String>> entries = page.getEntries().entrySet().iterator();
+
+            public boolean hasNext() {
+                while (!entries.hasNext() && page.getNextKey() != null) {
+                    page = page(page.getNextKey(), pageSize);
+                    entries = page.getEntries().entrySet().iterator();
+                }
+                return entries.hasNext();
+            }
+
+            public Map.Entry<String, String> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return entries.next();
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * One page of entries, sorted by key.
+     */
+    public static class Page {
+
+        private final SortedMap<String, String> entries;
+        private final String nextKey;
+
+        Page(SortedMap<String, String> entries, String nextKey) {
+            this.entries = Collections.unmodifiableSortedMap(entries);
+            this.nextKey = nextKey;
+        }
+
+        public SortedMap<String, String> getEntries() {
+            return entries;
+        }
+
+        /**
+         * @return the key to pass to {@link CacheEntryPager#page(String, int)} for the following page, or null if this
+         *         is the last page
+         */
+        public String getNextKey() {
+            return nextKey;
+        }
+    }
+
+    /**
+     * The entries of one node that have been read but not returned yet.
+     */
+    private static class NodeRun {
+
+        private final TreeMap<String, String> entries = new TreeMap<String, String>();
+
+        // the last key read from the node, its next run starts after it
+        private String lastKey;
+
+        // the node returned a shorter run than asked for, it has no more entries
+        private boolean exhausted;
+
+        NodeRun(String afterKey) {
+            this.lastKey = afterKey;
+        }
+
+        void add(TreeMap<String, String> run, int runSize) {
+            entries.putAll(run);
+            if (!run.isEmpty()) {
+                lastKey = run.lastKey();
+            }
+            exhausted = run.size() < runSize;
+        }
+    }
+
+    /**
+     * Runs on a node and collects, in key order, the first entries following a key which the node is the primary owner
+     * of.
+     */
+    static class PrimaryEntriesTask implements DistributedCallable<String, String, TreeMap<String, String>>, Serializable {
+
+        private static final long serialVersionUID = -3146843235484211957L;
+
+        private final String afterKey;
+        private final int limit;
+
+        private transient Cache<String, String> cache;
+
+        PrimaryEntriesTask(String afterKey, int limit) {
+            this.afterKey = afterKey;
+            this.limit = limit;
+        }
+
+        public void setEnvironment(Cache<String, String> cache, Set<String> inputKeys) {
+            this.cache = cache;
+        }
+
+        public TreeMap<String, String> call() throws Exception {
+            DataContainer container = cache.getAdvancedCache().getDataContainer();
+            DistributionManager distribution = cache.getAdvancedCache().getDistributionManager();
+            Address self = cache.getCacheManager().getAddress();
+            long now = System.currentTimeMillis();
+            TreeMap<String, String> entries = new TreeMap<String, String>();
+            for (InternalCacheEntry entry : container) {
+                String key = (String) entry.getKey();
+                if (afterKey != null && key.compareTo(afterKey) <= 0) {
+                    continue;
+                }
+                // keep only the smallest keys seen so far, larger ones cannot make it into the page
+                if (entries.size() == limit && key.compareTo(entries.lastKey()) >= 0) {
+                    continue;
+                }
+                if (entry.isExpired(now)) {
+                    continue;
+                }
+                // backup copies are returned by their primary owner
+                if (distribution != null && !self.equals(distribution.getPrimaryLocation(key))) {
+                    continue;
+                }
+                entries.put(key, (String) entry.getValue());
+                if (entries.size() > limit) {
+                    entries.pollLastEntry();
+                }
+            }
+            return entries;
+        }
+    }
+}
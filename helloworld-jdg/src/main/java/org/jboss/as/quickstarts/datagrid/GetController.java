@@ -22,7 +22,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import org.infinispan.manager.DefaultCacheManager;
 import org.infinispan.Cache;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * Retrieves entries from the cache.
@@ -34,17 +34,23 @@ import java.util.Set;
 @RequestScoped
 public class GetController {
 
+    // the number of entries shown by get all at once
+    private static final int PAGE_SIZE = 100;
+
     @Inject
     private Logger log;
 
     @Inject
     DefaultCacheManager m;
 
+    @Inject
+    private CacheEntryBrowser browser;
+
     private String key;
 
     private String message;
 
-    private StringBuffer allKeyValues = new StringBuffer();
+    private String nextKey;
 
     // Called by the get.xhtml - get button
     public void getOne() {
@@ -55,24 +61,33 @@ public class GetController {
 
     // Called by the get.xhtml - get all button
     public void getAll() {
-        Cache<String, String> c = m.getCache();
+        showPage(null);
+    }
 
-        Set<String> keySet = c.keySet();
-        for (String key : keySet) {
+    // Called by the get.xhtml - next page button
+    public void nextPage() {
+        showPage(nextKey);
+    }
 
-            String value = c.get(key);
-            log.info("k: " + key + " v: " + value);
+    private void showPage(String afterKey) {
+        CacheEntryPager.Page page = browser.page(afterKey, PAGE_SIZE);
 
-            allKeyValues.append(key + "=" + value + ", ");
-        } // for
+        StringBuilder allKeyValues = new StringBuilder();
+        for (Map.Entry<String, String> entry : page.getEntries().entrySet()) {
+            log.fine("k: " + entry.getKey() + " v: " + entry.getValue());
+            if (allKeyValues.length() > 0) {
+                allKeyValues.append(", ");
+            }
+            allKeyValues.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        log.info("get all: " + page.getEntries().size() + " entries after " + afterKey);
 
-        if (allKeyValues == null || allKeyValues.length() == 0) {
-            message = "Nothing in the Cache";
+        if (allKeyValues.length() == 0) {
+            message = afterKey == null ? "Nothing in the Cache" : "No more entries";
         } else {
-            // remote trailing comma
-            allKeyValues.delete(allKeyValues.length() - 2, allKeyValues.length());
             message = allKeyValues.toString();
         }
+        nextKey = page.getNextKey();
     }
 
     public String getKey() {
@@ -87,4 +102,12 @@ public class GetController {
         return message;
     }
 
+    public String getNextKey() {
+        return nextKey;
+    }
+
+    public void setNextKey(String nextKey) {
+        this.nextKey = nextKey;
+    }
+
 }
@@ -31,6 +31,9 @@ import org.infinispan.configuration.cache.CacheMode;
  * Creates a DefaultCacheManager which is configured programmatically. Infinispan's libraries need to be bundled with the
  * application.
  * 
+ * The number of owners, expiration, eviction and cache stores are set per cache in cache-profiles.properties, or in the
+ * file named by the helloworld.cache.profiles system property.
+ * 
  * @author Burr Sutter
  * @author Martin Gencur
  * 
@@ -38,7 +41,8 @@ import org.infinispan.configuration.cache.CacheMode;
 @ApplicationScoped
 public class MyCacheManagerProvider {
 
-    private static final long ENTRY_LIFESPAN = 60 * 1000; // 60 seconds
+    public static final String CACHE_PROFILES_FILE = "cache-profiles.properties";
+    public static final String CACHE_PROFILES_PROPERTY = "helloworld.cache.profiles";
 
     @Inject
     private Logger log;
@@ -55,17 +59,28 @@ public class MyCacheManagerProvider {
                     .globalJmxStatistics().allowDuplicateDomains(true).enable() // This method enables the jmx statistics of
                     // the global configuration and allows for duplicate JMX domains
                     .build(); // Builds the GlobalConfiguration object
-            Configuration loc = new ConfigurationBuilder().jmxStatistics().enable() // Enable JMX statistics
-                    .clustering().cacheMode(CacheMode.DIST_SYNC) // Set Cache mode to DISTRIBUTED with SYNCHRONOUS replication
-                    .hash().numOwners(2) // Keeps two copies of each key/value pair
-                    .expiration().lifespan(ENTRY_LIFESPAN) // Set expiration - cache entries expire after some time (given by
-                    // the lifespan parameter) and are removed from the cache (cluster-wide).
-                    .build();
+            CacheProfiles profiles = CacheProfiles.load(CACHE_PROFILES_FILE, CACHE_PROFILES_PROPERTY);
+            Configuration loc = configurationBuilder(profiles, CacheProfiles.DEFAULT_PROFILE).build();
             manager = new DefaultCacheManager(glob, loc, true);
+            for (String cacheName : profiles.getCacheNames()) {
+                // caches with a profile of their own
+                manager.defineConfiguration(cacheName, configurationBuilder(profiles, cacheName).build());
+            }
         }
         return manager;
     }
 
+    /**
+     * The settings that are not part of the cache profiles, with the profile of the given cache applied on top.
+     */
+    private ConfigurationBuilder configurationBuilder(CacheProfiles profiles, String cacheName) {
+        ConfigurationBuilder builder = new ConfigurationBuilder();
+        builder.jmxStatistics().enable() // Enable JMX statistics
+                .clustering().cacheMode(CacheMode.DIST_SYNC); // Set Cache mode to DISTRIBUTED with SYNCHRONOUS replication
+        // The number of owners and expiration come from cache-profiles.properties
+        return profiles.apply(builder, cacheName);
+    }
+
     @PreDestroy
     public void cleanUp() {
         manager.stop();
@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.hotrod;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.util.concurrent.NotifyingFuture;
+
+/**
+ * Non-blocking access to the teams stored in a {@link RemoteCache}.
+ * <p>
+ * Every method sends its requests immediately and returns futures, so callers can issue several operations before waiting
+ * for any of them. Reading N teams through {@link #getTeams(Collection)} costs roughly one round trip instead of N.
+ * </p>
+ * 
+ */
+public class AsyncTeamStore {
+
+    private final RemoteCache<String, Object> cache;
+
+    public AsyncTeamStore(RemoteCache<String, Object> cache) {
+        this.cache = cache;
+    }
+
+    public NotifyingFuture<Object> getTeam(String teamName) {
+        return cache.getAsync(teamName);
+    }
+
+    /**
+     * Starts fetching all the given teams at once.
+     * 
+     * @return the pending lookups in the order of the given names
+     */
+    public Map<String, Future<Object>> getTeams(Collection<String> teamNames) {
+        Map<String, Future<Object>> teams = new LinkedHashMap<String, Future<Object>>();
+        for (String teamName : teamNames) {
+            teams.put(teamName, cache.getAsync(teamName));
+        }
+        return teams;
+    }
+
+    public NotifyingFuture<Object> putTeam(Team team) {
+        return cache.putAsync(team.getName(), team);
+    }
+
+    public NotifyingFuture<Object> removeTeam(String teamName) {
+        return cache.removeAsync(teamName);
+    }
+
+    /**
+     * Starts storing a copy of the team with the players added. The given team is left as it was, so it still matches
+     * the stored one if the put fails.
+     */
+    public NotifyingFuture<Object> addPlayers(Team team, List<String> playerNames) {
+        Team updated = new Team(team.getName());
+        for (String playerName : team.getPlayers()) {
+            updated.addPlayer(playerName);
+        }
+        for (String playerName : playerNames) {
+            updated.addPlayer(playerName);
+        }
+        return putTeam(updated);
+    }
+
+    /**
+     * Waits for a future returned by this store, unwrapping the cause of a failed operation.
+     */
+    public static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Future;
 import org.infinispan.client.hotrod.RemoteCache;
 import org.infinispan.client.hotrod.RemoteCacheManager;
 
@@ -29,8 +30,9 @@ import org.infinispan.client.hotrod.RemoteCacheManager;
  */
 public class FootballManager {
 
-    private static final String JDG_HOST = "jdg.host";
-    private static final String HOTROD_PORT = "jdg.hotrod.port";
+    static final String JDG_HOST = "jdg.host";
+    static final String HOTROD_PORT = "jdg.hotrod.port";
+    static final String TEAMS_INDEX_SHARDS = "jdg.teams.index.shards";
     private static final String PROPERTIES_FILE = "jdg.properties";
     private static final String msgTeamMissing = "The specified team \"%s\" does not exist, choose next operation\n";
     private static final String msgEnterTeamName = "Enter team name: ";
@@ -42,46 +44,53 @@ public class FootballManager {
     private Console con;
     private RemoteCacheManager cacheManager;
     private RemoteCache<String, Object> cache;
+    private ShardedTeamIndex teams;
+    private AsyncTeamStore store;
 
     public FootballManager(Console con) {
         this.con = con;
         cacheManager = new RemoteCacheManager(jdgProperty(JDG_HOST) + ":" + jdgProperty(HOTROD_PORT));
         cache = cacheManager.getCache("teams");
-        if(!cache.containsKey(teamsKey)) {
-            List<String> teams = new ArrayList<String>();
+        teams = new ShardedTeamIndex(cache, teamsKey, teamsIndexShards());
+        store = new AsyncTeamStore(cache);
+        @SuppressWarnings("unchecked")
+        List<String> legacyTeams = (List<String>) cache.get(teamsKey);
+        if (legacyTeams != null) {
+            // move the team list written by older versions of this quickstart into the index
+            for (String teamName : legacyTeams) {
+                teams.add(teamName);
+            }
+            cache.remove(teamsKey);
+        }
+        if (teams.getAll().isEmpty()) {
             Team t = new Team("Barcelona");
             t.addPlayer("Messi");
             t.addPlayer("Pedro");
             t.addPlayer("Puyol");
             cache.put(t.getName(), t);
             teams.add(t.getName());
-            cache.put(teamsKey, teams);
         }
     }
 
     public void addTeam() {
         String teamName = con.readLine(msgEnterTeamName);
-        @SuppressWarnings("unchecked")
-        List<String> teams = (List<String>) cache.get(teamsKey);
-        if (teams == null) {
-            teams = new ArrayList<String>();
-        }
         Team t = new Team(teamName);
-        cache.put(teamName, t);
+        // store the team while the index is being updated
+        Future<Object> put = store.putTeam(t);
         teams.add(teamName);
-        // maintain a list of teams under common key
-        cache.put(teamsKey, teams);
+        AsyncTeamStore.await(put);
     }
 
     public void addPlayers() {
         String teamName = con.readLine(msgEnterTeamName);
         String playerName = null;
-        Team t = (Team) cache.get(teamName);
+        Team t = (Team) AsyncTeamStore.await(store.getTeam(teamName));
         if (t != null) {
+            List<String> playerNames = new ArrayList<String>();
             while (!(playerName = con.readLine("Enter player's name (to stop adding, type \"q\"): ")).equals("q")) {
-                t.addPlayer(playerName);
+                playerNames.add(playerName);
             }
-            cache.put(teamName, t);
+            AsyncTeamStore.await(store.addPlayers(t, playerNames));
         } else {
             con.printf(msgTeamMissing, teamName);
         }
@@ -103,24 +112,20 @@ public class FootballManager {
         String teamName = con.readLine(msgEnterTeamName);
         Team t = (Team) cache.get(teamName);
         if (t != null) {
-            cache.remove(teamName);
-            @SuppressWarnings("unchecked")
-            List<String> teams = (List<String>) cache.get(teamsKey);
-            if (teams != null) {
-                teams.remove(teamName);
-            }
-            cache.put(teamsKey, teams);
+            Future<Object> remove = store.removeTeam(teamName);
+            teams.remove(teamName);
+            AsyncTeamStore.await(remove);
         } else {
             con.printf(msgTeamMissing, teamName);
         }
     }
 
     public void printTeams() {
-        @SuppressWarnings("unchecked")
-        List<String> teams = (List<String>) cache.get(teamsKey);
-        if (teams != null) {
-            for (String teamName : teams) {
-                con.printf(cache.get(teamName).toString());
+        // all lookups are sent before waiting for the first one
+        for (Future<Object> team : store.getTeams(teams.getAll()).values()) {
+            Object t = AsyncTeamStore.await(team);
+            if (t != null) {
+                con.printf(t.toString());
             }
         }
     }
@@ -153,6 +158,11 @@ public class FootballManager {
         }
     }
 
+    static int teamsIndexShards() {
+        String shards = jdgProperty(TEAMS_INDEX_SHARDS);
+        return shards == null ? 16 : Integer.parseInt(shards.trim());
+    }
+
     public static String jdgProperty(String name) {
         Properties props = new Properties();
         try {
@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.hotrod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.VersionedValue;
+
+/**
+ * Keeps the names of all teams in a fixed number of bucket entries instead of a single shared list.
+ * <p>
+ * A team name always lives in the bucket chosen by its hash, so clients adding or removing different teams mostly update
+ * different entries. A bucket is read with {@link RemoteCache#getVersioned(Object)} and written back with
+ * {@link RemoteCache#replaceWithVersion(Object, Object, long)}, which fails if the Hot Rod server holds a newer version
+ * of it; the update is then made again on the bucket as it is now.
+ * </p>
+ * 
+ */
+class ShardedTeamIndex {
+
+    private final RemoteCache<String, Object> cache;
+    private final String keyPrefix;
+    private final int shards;
+
+    ShardedTeamIndex(RemoteCache<String, Object> cache, String keyPrefix, int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("The number of shards must be positive");
+        }
+        this.cache = cache;
+        this.keyPrefix = keyPrefix;
+        this.shards = shards;
+    }
+
+    void add(String teamName) {
+        update(teamName, true);
+    }
+
+    void remove(String teamName) {
+        update(teamName, false);
+    }
+
+    /**
+     * Reads all buckets concurrently.
+     */
+    @SuppressWarnings("unchecked")
+    List<String> getAll() {
+        List<Future<Object>> buckets = new ArrayList<Future<Object>>(shards);
+        for (int i = 0; i < shards; i++) {
+            buckets.add(cache.getAsync(bucketKey(i)));
+        }
+        List<String> teams = new ArrayList<String>();
+        try {
+            for (Future<Object> bucket : buckets) {
+                List<String> names = (List<String>) bucket.get();
+                if (names != null) {
+                    teams.addAll(names);
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return teams;
+    }
+
+    /**
+     * Removes all buckets, and so every team name, from the cache.
+     */
+    void clear() {
+        for (int i = 0; i < shards; i++) {
+            cache.remove(bucketKey(i));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void update(String teamName, boolean add) {
+        String key = bucketKey(shard(teamName));
+        while (true) {
+            VersionedValue<Object> current = cache.getVersioned(key);
+            if (current == null) {
+                if (!add) {
+                    return;
+                }
+                List<String> bucket = new ArrayList<String>();
+                bucket.add(teamName);
+                // the previous value is only returned when asked for, it tells whether the bucket was created
+                if (cache.withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent(key, bucket) == null) {
+                    return;
+                }
+            } else {
+                List<String> bucket = new ArrayList<String>((List<String>) current.getValue());
+                boolean changed = add ? !bucket.contains(teamName) && bucket.add(teamName) : bucket.remove(teamName);
+                if (!changed || cache.replaceWithVersion(key, bucket, current.getVersion())) {
+                    return;
+                }
+            }
+            // another client updated the bucket concurrently, read it again
+        }
+    }
+
+    private int shard(String teamName) {
+        return (teamName.hashCode() & Integer.MAX_VALUE) % shards;
+    }
+
+    private String bucketKey(int shard) {
+        return keyPrefix + "." + shard;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.hotrod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the latency of reading and updating teams with blocking {@link RemoteCache} calls and with the
+ * {@link AsyncTeamStore}, against a {@link LocalHotRodServer}.
+ * <p>
+ * The server listens on port 11322, so it does not clash with a JDG server on the default Hot Rod port. To time the
+ * team lookups only, run:
+ * <code>mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test -Dexec.args="-cp %classpath org.openjdk.jmh.Main AsyncTeamStoreBenchmark.printTeams"</code>
+ * </p>
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AsyncTeamStoreBenchmark {
+
+    @Param({ "20" })
+    public int teamCount;
+
+    @Param({ "10" })
+    public int playersPerRun;
+
+    private LocalHotRodServer server;
+    private RemoteCacheManager cacheManager;
+    private RemoteCache<String, Object> cache;
+    private AsyncTeamStore store;
+    private List<String> teamNames;
+    private List<String> playerNames;
+
+    @Setup
+    public void setUp() {
+        server = new LocalHotRodServer(11322);
+        cacheManager = server.createClient();
+        cache = cacheManager.getCache("teams");
+        store = new AsyncTeamStore(cache);
+        teamNames = new ArrayList<String>(teamCount);
+        for (int i = 0; i < teamCount; i++) {
+            Team team = new Team("team" + i);
+            team.addPlayer("player" + i);
+            cache.put(team.getName(), team);
+            teamNames.add(team.getName());
+        }
+        playerNames = new ArrayList<String>(playersPerRun);
+        for (int i = 0; i < playersPerRun; i++) {
+            playerNames.add("player" + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cacheManager.stop();
+        server.stop();
+    }
+
+    @Benchmark
+    public int printTeamsBlocking() {
+        int found = 0;
+        for (String teamName : teamNames) {
+            if (cache.get(teamName) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int printTeamsAsync() {
+        int found = 0;
+        for (Future<Object> team : store.getTeams(teamNames).values()) {
+            if (AsyncTeamStore.await(team) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public Object addPlayersBlocking() {
+        Team team = new Team("team0");
+        for (String playerName : playerNames) {
+            team.addPlayer(playerName);
+        }
+        return cache.put(team.getName(), team);
+    }
+
+    @Benchmark
+    public Object addPlayersAsync() {
+        return AsyncTeamStore.await(store.addPlayers(new Team("team0"), playerNames));
+    }
+}
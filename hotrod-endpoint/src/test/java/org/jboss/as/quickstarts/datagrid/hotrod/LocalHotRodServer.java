@@ -0,0 +1,52 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.hotrod;
+
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.server.hotrod.configuration.HotRodServerConfigurationBuilder;
+
+/**
+ * An in-process Hot Rod server with a local "teams" cache, so the client code can be measured without a remote grid.
+ * 
+ */
+public class LocalHotRodServer {
+
+    private final int port;
+    private final EmbeddedCacheManager cacheManager;
+    private final HotRodServer server;
+
+    public LocalHotRodServer(int port) {
+        this.port = port;
+        cacheManager = new DefaultCacheManager();
+        cacheManager.defineConfiguration("teams", new ConfigurationBuilder().build());
+        server = new HotRodServer();
+        server.start(new HotRodServerConfigurationBuilder().host("127.0.0.1").port(port).build(), cacheManager);
+    }
+
+    public RemoteCacheManager createClient() {
+        return new RemoteCacheManager("127.0.0.1:" + port);
+    }
+
+    public void stop() {
+        server.stop();
+        cacheManager.stop();
+    }
+}
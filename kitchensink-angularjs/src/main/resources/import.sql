@@ -16,4 +16,4 @@
 --
 
 -- You can use this file to load seed data into the database using SQL statements
-insert into Member (id, name, email, phone_number) values (0, 'John Smith', 'john.smith@mailinator.com', '2125551212') 
\ No newline at end of file
+insert into Member (id, name, email, phone_number, version) values (0, 'John Smith', 'john.smith@mailinator.com', '2125551212', 0) 
\ No newline at end of file
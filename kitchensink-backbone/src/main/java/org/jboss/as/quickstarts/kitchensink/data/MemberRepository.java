@@ -21,6 +21,8 @@ import org.jboss.as.quickstarts.kitchensink.model.Member;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
@@ -32,10 +34,25 @@ public class MemberRepository {
     @Inject
     private EntityManager em;
 
+    @PersistenceUnit
+    private EntityManagerFactory emf;
+
     public Member findById(Long id) {
         return em.find(Member.class, id);
     }
 
+    /**
+     * Returns the version of the member without loading it, or null if there is no such member.
+     */
+    public Long findVersionById(Long id) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> criteria = cb.createQuery(Long.class);
+        Root<Member> member = criteria.from(Member.class);
+        criteria.select(member.<Long> get("version")).where(cb.equal(member.get("id"), id));
+        List<Long> versions = em.createQuery(criteria).getResultList();
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
     public Member findByEmail(String email) {
         CriteriaBuilder cb = em.getCriteriaBuilder();
         CriteriaQuery<Member> criteria = cb.createQuery(Member.class);
@@ -60,4 +77,12 @@ public class MemberRepository {
         criteria.select(member).orderBy(cb.asc(member.get("name")));
         return em.createQuery(criteria).getResultList();
     }
+
+    /**
+     * Opens a cursor over all the members ordered by name, for lists too long to be read at once. The cursor reads with
+     * an entity manager of its own and must be closed.
+     */
+    public MemberCursor openAllOrderedByName() {
+        return new MemberCursor(emf.createEntityManager(), "select m from Member m order by m.name");
+    }
 }
@@ -15,4 +15,4 @@
 -- limitations under the License.
 --
 -- You can use this file to load seed data into the database using SQL statements
-insert into Member_backbone (id, name, email, phone_number) values (0, 'John Smith', 'john.smith@mailinator.com', '2125551212')
\ No newline at end of file
+insert into Member_backbone (id, name, email, phone_number, version) values (0, 'John Smith', 'john.smith@mailinator.com', '2125551212', 0)
\ No newline at end of file
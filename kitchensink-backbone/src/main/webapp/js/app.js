@@ -177,7 +177,7 @@ $(function() {
 
 			var jqxhr = $.ajax({
 		        url: 'rest/members',
-		        cache: false,
+		        // the browser keeps the list and checks it with its ETag, an unchanged list is not sent again
 		        type: "GET"
 		    }).done(function(data, textStatus, jqXHR) {
 //	            console.log("AppView - Update Member - succes on ajax call");
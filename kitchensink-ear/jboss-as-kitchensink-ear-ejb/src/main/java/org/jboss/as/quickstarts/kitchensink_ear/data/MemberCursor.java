@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.kitchensink_ear.data;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.jboss.as.quickstarts.kitchensink_ear.model.Member;
+
+/**
+ * Iterates over the result of a query one member at a time. The rows are read from the database as the members are
+ * needed rather than all at once, and the persistence context is cleared every {@value #CLEAR_INTERVAL} members, so the
+ * members already iterated over can be garbage collected. The cursor must be closed, which also closes the entity
+ * manager it reads with.
+ */
+public class MemberCursor implements Iterator<Member>, Closeable {
+
+    public static final int CLEAR_INTERVAL = 100;
+
+    private final EntityManager em;
+
+    private final ScrollableResults results;
+
+    private Boolean hasNext;
+
+    private int count;
+
+    public MemberCursor(EntityManager em, String query) {
+        this.em = em;
+        try {
+            results = em.unwrap(Session.class).createQuery(query).setReadOnly(true).setFetchSize(CLEAR_INTERVAL)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+        } catch (RuntimeException e) {
+            em.close();
+            throw e;
+        }
+    }
+
+    public boolean hasNext() {
+        if (hasNext == null) {
+            hasNext = results.next();
+        }
+        return hasNext;
+    }
+
+    public Member next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        hasNext = null;
+        if (++count % CLEAR_INTERVAL == 0) {
+            // the members returned so far are not needed any more
+            em.clear();
+        }
+        return (Member) results.get(0);
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    public void close() {
+        try {
+            results.close();
+        } finally {
+            em.close();
+        }
+    }
+}
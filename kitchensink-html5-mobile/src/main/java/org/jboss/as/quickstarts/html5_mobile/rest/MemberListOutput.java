@@ -0,0 +1,62 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.html5_mobile.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.SerializationConfig;
+import org.jboss.as.quickstarts.html5_mobile.data.MemberCursor;
+import org.jboss.as.quickstarts.html5_mobile.data.MemberRepository;
+
+/**
+ * Writes all the members ordered by name as a JSON array while they are read from the database, so the whole list is
+ * never held in memory, however many members there are. Each member is serialized by Jackson, like the JAX-RS provider
+ * serializes a single member, so the elements of the array have the same fields.
+ */
+public class MemberListOutput implements StreamingOutput {
+
+    // the generator is flushed once at the end rather than after every member
+    private static final ObjectMapper MAPPER = new ObjectMapper().configure(
+            SerializationConfig.Feature.FLUSH_AFTER_WRITE_VALUE, false);
+
+    private final MemberRepository repository;
+
+    public MemberListOutput(MemberRepository repository) {
+        this.repository = repository;
+    }
+
+    public void write(OutputStream output) throws IOException {
+        JsonGenerator json = MAPPER.getJsonFactory().createJsonGenerator(output, JsonEncoding.UTF8);
+        MemberCursor members = repository.openAllOrderedByName();
+        try {
+            json.writeStartArray();
+            while (members.hasNext()) {
+                MAPPER.writeValue(json, members.next());
+            }
+            json.writeEndArray();
+            json.flush();
+        } finally {
+            members.close();
+        }
+    }
+}
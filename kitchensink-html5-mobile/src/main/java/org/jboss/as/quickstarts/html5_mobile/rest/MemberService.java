@@ -18,7 +18,6 @@ package org.jboss.as.quickstarts.html5_mobile.rest;
 
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -38,9 +37,14 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
+import org.jboss.as.quickstarts.html5_mobile.data.MemberChangeSequence;
 import org.jboss.as.quickstarts.html5_mobile.data.MemberRepository;
 import org.jboss.as.quickstarts.html5_mobile.model.Member;
 import org.jboss.as.quickstarts.html5_mobile.service.MemberRegistration;
@@ -63,24 +67,41 @@ public class MemberService {
     @Inject
     private MemberRepository repository;
 
+    @Inject
+    private MemberChangeSequence changeSequence;
+
     @Inject
     MemberRegistration registration;
 
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public List<Member> listAllMembers() {
-        return repository.findAllOrderedByName();
+    public Response listAllMembers(@Context Request request) {
+        EntityTag tag = new EntityTag(changeSequence.current());
+        Response.ResponseBuilder builder = request.evaluatePreconditions(tag);
+        if (builder == null) {
+            builder = Response.ok(new MemberListOutput(repository)).tag(tag);
+        }
+        return builder.cacheControl(revalidate()).build();
     }
 
     @GET
     @Path("/{id:[0-9][0-9]*}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Member lookupMemberById(@PathParam("id") long id) {
+    public Response lookupMemberById(@PathParam("id") long id, @Context Request request) {
+        // only the version is read to answer a client that holds the current member already
+        Long version = repository.findVersionById(id);
+        if (version == null) {
+            throw new WebApplicationException(Response.Status.NOT_FOUND);
+        }
+        Response.ResponseBuilder builder = request.evaluatePreconditions(memberTag(id, version));
+        if (builder != null) {
+            return builder.cacheControl(revalidate()).build();
+        }
         Member member = repository.findById(id);
         if (member == null) {
             throw new WebApplicationException(Response.Status.NOT_FOUND);
         }
-        return member;
+        return Response.ok(member).tag(memberTag(id, member.getVersion())).cacheControl(revalidate()).build();
     }
 
     /**
@@ -183,4 +204,16 @@ public class MemberService {
         }
         return member != null;
     }
+
+    // a strong ETag, a member with the same version has the same representation
+    private static EntityTag memberTag(long id, long version) {
+        return new EntityTag(id + "-" + version);
+    }
+
+    // the response may be kept by the client, but is checked with its ETag before it is used again
+    private static CacheControl revalidate() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+        return cacheControl;
+    }
 }
@@ -16,4 +16,4 @@
 --
 
 -- You can use this file to load seed data into the database using SQL statements
-insert into Member_html5mobi (id, name, email, phone_number) values (0, 'John Smith', 'john.smith@mailinator.com', '2125551212')
+insert into Member_html5mobi (id, name, email, phone_number, version) values (0, 'John Smith', 'john.smith@mailinator.com', '2125551212', 0)
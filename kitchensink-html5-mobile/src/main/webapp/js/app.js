@@ -28,7 +28,7 @@ function buildMemberRows(members) {
 function updateMemberTable() {
     $.ajax({
         url: "rest/members",
-        cache: false,
+        // the browser keeps the list and checks it with its ETag, an unchanged list is not sent again
         success: function(data) {
             $('#members').empty().append(buildMemberRows(data));
         },
@@ -0,0 +1,81 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.kitchensinkjsp.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.persistence.EntityManagerFactory;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jboss.as.quickstarts.kitchensinkjsp.data.MemberCursor;
+import org.jboss.as.quickstarts.kitchensinkjsp.model.Member;
+
+/**
+ * Writes all the members ordered by name as XML while they are read from the database, so the whole list is never
+ * held in memory, however many members there are. The document has the same <code>collection</code> root element as
+ * a list of members written by JAX-RS.
+ */
+public class MemberListOutput implements StreamingOutput {
+
+    private static final JAXBContext CONTEXT;
+
+    static {
+        try {
+            CONTEXT = JAXBContext.newInstance(Member.class);
+        } catch (JAXBException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final EntityManagerFactory emf;
+
+    public MemberListOutput(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    public void write(OutputStream output) throws IOException {
+        MemberCursor members = new MemberCursor(emf.createEntityManager(), "select m from Member m order by m.name");
+        try {
+            Marshaller marshaller = CONTEXT.createMarshaller();
+            // every member is written as an element of the collection rather than as a document of its own
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+            XMLStreamWriter out = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+            out.writeStartDocument("UTF-8", "1.0");
+            out.writeStartElement("collection");
+            while (members.hasNext()) {
+                marshaller.marshal(members.next(), out);
+            }
+            out.writeEndElement();
+            out.writeEndDocument();
+            out.flush();
+        } catch (JAXBException e) {
+            throw new WebApplicationException(e);
+        } catch (XMLStreamException e) {
+            throw new WebApplicationException(e);
+        } finally {
+            members.close();
+        }
+    }
+}
@@ -16,15 +16,16 @@
  */
 package org.jboss.as.quickstarts.kitchensinkjsp.rest;
 
-import java.util.List;
-
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.jboss.as.quickstarts.kitchensinkjsp.model.Member;
 
@@ -39,18 +40,13 @@ public class MemberResourceRESTService {
     @Inject
     private EntityManager em;
 
+    @PersistenceUnit
+    private EntityManagerFactory emf;
+
     @GET
     @Produces("text/xml")
-    public List<Member> listAllMembers() {
-        // Use @SupressWarnings to force IDE to ignore warnings about "genericizing" the results of
-        // this query
-        @SuppressWarnings("unchecked")
-        // We recommend centralizing inline queries such as this one into @NamedQuery annotations on
-        // the @Entity class
-        // as described in the named query blueprint:
-        // https://blueprints.dev.java.net/bpcatalog/ee5/persistence/namedquery.html
-        final List<Member> results = em.createQuery("select m from Member m order by m.name").getResultList();
-        return results;
+    public StreamingOutput listAllMembers() {
+        return new MemberListOutput(emf);
     }
 
     @GET
@@ -18,7 +18,6 @@ package org.jboss.as.quickstarts.kitchensink_ear.rest;
 
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -39,6 +38,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.jboss.as.quickstarts.kitchensink_ear.data.MemberRepository;
 import org.jboss.as.quickstarts.kitchensink_ear.model.Member;
@@ -66,8 +66,8 @@ public class MemberResourceRESTService {
 
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public List<Member> listAllMembers() {
-        return repository.findAllOrderedByName();
+    public StreamingOutput listAllMembers() {
+        return new MemberListOutput(repository);
     }
 
     @GET
@@ -0,0 +1,61 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.kitchensink.data;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+
+import org.jboss.as.quickstarts.kitchensink.model.Member;
+import org.jboss.as.quickstarts.kitchensink.service.MembersImported;
+
+/**
+ * Counts the changes made to the members, so that a client can tell whether the list it holds is still current
+ * without reading it again. The count starts again when the application is deployed, so it is prefixed with the time
+ * of the deployment to tell it apart from the counts of earlier deployments.
+ * 
+ * <p>
+ * Only registrations made through this application instance are counted, other cluster nodes or direct database
+ * changes are not seen.
+ * </p>
+ */
+@ApplicationScoped
+public class MemberChangeSequence {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong changes = new AtomicLong();
+
+    // only registrations that were committed are counted
+    public void onMemberChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) final Member member) {
+        changes.incrementAndGet();
+    }
+
+    public void onMembersImported(@Observes(during = TransactionPhase.AFTER_SUCCESS) final MembersImported imported) {
+        changes.addAndGet(imported.getCount());
+    }
+
+    /**
+     * Returns a value that changes whenever a member is registered. Read it before the members, so that it is never
+     * newer than the members it is sent with.
+     */
+    public String current() {
+        return epoch + "-" + changes.get();
+    }
+}
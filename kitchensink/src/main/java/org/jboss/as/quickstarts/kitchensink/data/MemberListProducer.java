@@ -17,38 +17,123 @@
 package org.jboss.as.quickstarts.kitchensink.data;
 
 import javax.annotation.PostConstruct;
-import javax.enterprise.context.RequestScoped;
+import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.enterprise.event.Reception;
+import javax.enterprise.event.TransactionPhase;
 import javax.enterprise.inject.Produces;
 import javax.inject.Inject;
 import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jboss.as.quickstarts.kitchensink.model.Member;
+import org.jboss.as.quickstarts.kitchensink.service.MembersImported;
 
-@RequestScoped
+/**
+ * Keeps the members ordered by name, loaded from the database once and then kept up to date from the events fired when
+ * a member is registered. Every request gets an immutable snapshot of the list, so showing the members does not query
+ * the database. The snapshot is copied again only when it is read after members were added.
+ * 
+ * <p>
+ * Members imported in bulk are not added one by one, as an import may be far larger than the list ever shown. The list
+ * is dropped instead and read again from the database the next time it is shown.
+ * </p>
+ * 
+ * <p>
+ * Only registrations made through this application instance are seen, other cluster nodes or direct database changes
+ * are picked up when the application is redeployed.
+ * </p>
+ */
+@ApplicationScoped
 public class MemberListProducer {
 
+    // the order of MemberRepository.findAllOrderedByName, with the id breaking ties between equal names
+    private static final Comparator<Member> BY_NAME = new Comparator<Member>() {
+        public int compare(Member m1, Member m2) {
+            int result = m1.getName().compareTo(m2.getName());
+            return result != 0 ? result : m1.getId().compareTo(m2.getId());
+        }
+    };
+
     @Inject
     private MemberRepository memberRepository;
 
-    private List<Member> members;
+    private final NavigableSet<Member> sortedMembers = new ConcurrentSkipListSet<Member>(BY_NAME);
+
+    // incremented after every change of sortedMembers
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.<Member> emptyList(), -1);
+
+    // set when sortedMembers was dropped after an import, and must be read from the database again
+    private volatile boolean stale;
 
     // @Named provides access the return value via the EL variable name "members" in the UI (e.g.
     // Facelets or JSP view)
     @Produces
     @Named
     public List<Member> getMembers() {
-        return members;
+        if (stale) {
+            reload();
+        }
+        Snapshot current = snapshot;
+        long latest = version.get();
+        if (current.version != latest) {
+            // the copy is made after reading the version, so it holds at least the members counted by it
+            current = new Snapshot(Collections.unmodifiableList(new ArrayList<Member>(sortedMembers)), latest);
+            snapshot = current;
+        }
+        return current.members;
+    }
+
+    // only registrations that were committed are added
+    public void onMemberListChanged(
+            @Observes(notifyObserver = Reception.IF_EXISTS, during = TransactionPhase.AFTER_SUCCESS) final Member member) {
+        sortedMembers.add(member);
+        version.incrementAndGet();
     }
 
-    public void onMemberListChanged(@Observes(notifyObserver = Reception.IF_EXISTS) final Member member) {
-        retrieveAllMembersOrderedByName();
+    public void onMembersImported(@Observes(notifyObserver = Reception.IF_EXISTS,
+            during = TransactionPhase.AFTER_SUCCESS) final MembersImported imported) {
+        sortedMembers.clear();
+        stale = true;
+        version.incrementAndGet();
+    }
+
+    private synchronized void reload() {
+        if (stale) {
+            // cleared first, an import committed while the members are read marks the list stale again
+            stale = false;
+            sortedMembers.addAll(memberRepository.findAllOrderedByName());
+            version.incrementAndGet();
+        }
     }
 
     @PostConstruct
     public void retrieveAllMembersOrderedByName() {
-        members = memberRepository.findAllOrderedByName();
+        sortedMembers.addAll(memberRepository.findAllOrderedByName());
+        version.incrementAndGet();
+    }
+
+    /*
+     * The copy is made by the first read after a change rather than on every change, so many registrations in a row
+     * cost a single copy.
+     */
+    private static final class Snapshot {
+
+        private final List<Member> members;
+
+        private final long version;
+
+        Snapshot(List<Member> members, long version) {
+            this.members = members;
+            this.version = version;
+        }
     }
 }
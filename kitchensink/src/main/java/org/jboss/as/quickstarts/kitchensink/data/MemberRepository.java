@@ -19,12 +19,11 @@ package org.jboss.as.quickstarts.kitchensink.data;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Root;
+import javax.persistence.TypedQuery;
 import java.util.List;
 
 import org.jboss.as.quickstarts.kitchensink.model.Member;
+import org.jboss.as.quickstarts.kitchensink.model.MemberSummary;
 
 @ApplicationScoped
 public class MemberRepository {
@@ -36,25 +35,40 @@ public class MemberRepository {
         return em.find(Member.class, id);
     }
 
+    /**
+     * Returns the version of the member without loading it, or null if there is no such member.
+     */
+    public Long findVersionById(Long id) {
+        List<Long> versions = em.createNamedQuery(Member.FIND_VERSION_BY_ID, Long.class).setParameter("id", id)
+                .getResultList();
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
     public Member findByEmail(String email) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<Member> criteria = cb.createQuery(Member.class);
-        Root<Member> member = criteria.from(Member.class);
-        // Swap criteria statements if you would like to try out type-safe criteria queries, a new
-        // feature in JPA 2.0
-        // criteria.select(member).where(cb.equal(member.get(Member_.email), email));
-        criteria.select(member).where(cb.equal(member.get("email"), email));
-        return em.createQuery(criteria).getSingleResult();
+        return em.createNamedQuery(Member.FIND_BY_EMAIL, Member.class).setParameter("email", email).getSingleResult();
     }
 
     public List<Member> findAllOrderedByName() {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<Member> criteria = cb.createQuery(Member.class);
-        Root<Member> member = criteria.from(Member.class);
-        // Swap criteria statements if you would like to try out type-safe criteria queries, a new
-        // feature in JPA 2.0
-        // criteria.select(member).orderBy(cb.asc(member.get(Member_.name)));
-        criteria.select(member).orderBy(cb.asc(member.get("name")));
-        return em.createQuery(criteria).getResultList();
+        return em.createNamedQuery(Member.FIND_ALL_ORDERED_BY_NAME, Member.class).getResultList();
+    }
+
+    /**
+     * Returns at most <code>limit</code> members ordered by name and id, starting after the given name and id (keyset
+     * pagination). The members are selected as {@link MemberSummary} projections, so they are not managed.
+     * 
+     * @param afterName name of the last member of the previous page, or null for the first page
+     * @param afterId id of the last member of the previous page, ignored for the first page
+     * @param limit maximum number of members to return
+     */
+    public List<MemberSummary> findPageOrderedByName(String afterName, Long afterId, int limit) {
+        TypedQuery<MemberSummary> query;
+        if (afterName == null) {
+            query = em.createNamedQuery(Member.FIND_FIRST_PAGE, MemberSummary.class);
+        } else {
+            // (name, id) > (afterName, afterId), which an index on (name, id) can seek to
+            query = em.createNamedQuery(Member.FIND_PAGE_AFTER, MemberSummary.class).setParameter("name", afterName)
+                    .setParameter("id", afterId);
+        }
+        return query.setMaxResults(limit).getResultList();
     }
 }
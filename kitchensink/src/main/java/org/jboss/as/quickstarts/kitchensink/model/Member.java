@@ -18,12 +18,19 @@ package org.jboss.as.quickstarts.kitchensink.model;
 
 import java.io.Serializable;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.QueryHint;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
 import javax.validation.constraints.Digits;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
@@ -36,11 +43,45 @@ import org.hibernate.validator.constraints.NotEmpty;
 @SuppressWarnings("serial")
 @Entity
 @XmlRootElement
-@Table(uniqueConstraints = @UniqueConstraint(columnNames = "email"))
+@Table(uniqueConstraints = @UniqueConstraint(name = Member.EMAIL_CONSTRAINT, columnNames = "email"))
+// Kept in the second-level cache when the persistence unit is built with the l2-cache profile, see persistence.xml
+@Cacheable
+// Named queries are parsed once, when the persistence unit starts, rather than every time they are run. The results of
+// the cacheable ones are kept in the query cache, if it is enabled, until a member is registered or changed.
+@NamedQueries({
+        @NamedQuery(name = Member.FIND_BY_EMAIL, query = "select m from Member m where m.email = :email",
+                hints = @QueryHint(name = Member.CACHEABLE, value = "true")),
+        @NamedQuery(name = Member.FIND_VERSION_BY_ID, query = "select m.version from Member m where m.id = :id",
+                hints = @QueryHint(name = Member.CACHEABLE, value = "true")),
+        @NamedQuery(name = Member.FIND_ALL_ORDERED_BY_NAME, query = "select m from Member m order by m.name",
+                hints = @QueryHint(name = Member.CACHEABLE, value = "true")),
+        @NamedQuery(name = Member.FIND_FIRST_PAGE, query = "select new "
+                + "org.jboss.as.quickstarts.kitchensink.model.MemberSummary(m.id, m.name, m.email, m.phoneNumber)"
+                + " from Member m order by m.name, m.id", hints = @QueryHint(name = Member.CACHEABLE, value = "true")),
+        @NamedQuery(name = Member.FIND_PAGE_AFTER, query = "select new "
+                + "org.jboss.as.quickstarts.kitchensink.model.MemberSummary(m.id, m.name, m.email, m.phoneNumber)"
+                + " from Member m where m.name > :name or (m.name = :name and m.id > :id) order by m.name, m.id",
+                hints = @QueryHint(name = Member.CACHEABLE, value = "true")) })
 public class Member implements Serializable {
 
+    /**
+     * The name of the unique constraint on the email, a registration violating it has a duplicate email
+     */
+    public static final String EMAIL_CONSTRAINT = "member_email_unique";
+
+    public static final String FIND_BY_EMAIL = "Member.findByEmail";
+    public static final String FIND_VERSION_BY_ID = "Member.findVersionById";
+    public static final String FIND_ALL_ORDERED_BY_NAME = "Member.findAllOrderedByName";
+    public static final String FIND_FIRST_PAGE = "Member.findFirstPage";
+    public static final String FIND_PAGE_AFTER = "Member.findPageAfter";
+
+    // the Hibernate query hint that puts the results of a query in the query cache
+    static final String CACHEABLE = "org.hibernate.cacheable";
+
+    // ids are taken from the sequence 50 at a time, so that most registrations are a single insert
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq")
+    @SequenceGenerator(name = "member_seq", sequenceName = "member_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -59,6 +100,10 @@ public class Member implements Serializable {
     @Column(name = "phone_number")
     private String phoneNumber;
 
+    // incremented by every update, the ETag of the member is derived from it
+    @Version
+    private long version;
+
     public Long getId() {
         return id;
     }
@@ -90,4 +135,12 @@ public class Member implements Serializable {
     public void setPhoneNumber(String phoneNumber) {
         this.phoneNumber = phoneNumber;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.kitchensink.rest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.jboss.as.quickstarts.kitchensink.model.Member;
+
+/**
+ * Validates a batch of members on several threads, one slice of the batch per processor. The threads are shared by all
+ * the batch imports and stopped when the application is undeployed.
+ */
+@ApplicationScoped
+public class MemberBatchValidator {
+
+    private final int threads = Runtime.getRuntime().availableProcessors();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "kitchensink-validator-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    @Inject
+    private Validator validator;
+
+    /**
+     * Returns the constraint violations of every member, in the order of the members.
+     */
+    public List<Set<ConstraintViolation<Member>>> validate(final List<Member> members) {
+        int sliceSize = Math.max(1, (members.size() + threads - 1) / threads);
+        List<Future<List<Set<ConstraintViolation<Member>>>>> slices =
+                new ArrayList<Future<List<Set<ConstraintViolation<Member>>>>>();
+        for (int start = 0; start < members.size(); start += sliceSize) {
+            final List<Member> slice = members.subList(start, Math.min(start + sliceSize, members.size()));
+            slices.add(executor.submit(new Callable<List<Set<ConstraintViolation<Member>>>>() {
+                public List<Set<ConstraintViolation<Member>>> call() {
+                    List<Set<ConstraintViolation<Member>>> violations = new ArrayList<Set<ConstraintViolation<Member>>>(
+                            slice.size());
+                    for (Member member : slice) {
+                        violations.add(validator.validate(member));
+                    }
+                    return violations;
+                }
+            }));
+        }
+        List<Set<ConstraintViolation<Member>>> violations = new ArrayList<Set<ConstraintViolation<Member>>>(
+                members.size());
+        try {
+            for (Future<List<Set<ConstraintViolation<Member>>>> slice : slices) {
+                violations.addAll(slice.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return violations;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.kitchensink.rest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.jboss.as.quickstarts.kitchensink.model.Member;
+
+/**
+ * Reads a JSON array of members one member at a time, so that an array of any size can be imported without holding it
+ * in memory. The <code>name</code>, <code>email</code> and <code>phoneNumber</code> properties are read, any other
+ * property is skipped. A number is read as its text, so <code>"phoneNumber": 2125551234</code> is accepted as well as
+ * the quoted form. A malformed document makes {@link #hasNext()} or {@link #next()} throw an
+ * {@link IllegalArgumentException}.
+ */
+public class MemberJsonReader implements Iterator<Member>, Closeable {
+
+    private final Reader reader;
+
+    private int peeked = -2;
+
+    private boolean started;
+
+    // the separator before the next member has been read
+    private boolean positioned;
+
+    private boolean finished;
+
+    public MemberJsonReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    public boolean hasNext() {
+        if (finished) {
+            return false;
+        }
+        if (positioned) {
+            return true;
+        }
+        try {
+            if (!started) {
+                expect('[');
+                started = true;
+                if (!nextIs(']')) {
+                    positioned = true;
+                }
+            } else if (nextIs(',')) {
+                positioned = true;
+            } else {
+                expect(']');
+            }
+            finished = !positioned;
+            return positioned;
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    public Member next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        positioned = false;
+        try {
+            Member member = new Member();
+            expect('{');
+            if (peekToken() == '}') {
+                read();
+                return member;
+            }
+            do {
+                String property = readString();
+                expect(':');
+                if ("name".equals(property)) {
+                    member.setName(readStringOrNull());
+                } else if ("email".equals(property)) {
+                    member.setEmail(readStringOrNull());
+                } else if ("phoneNumber".equals(property)) {
+                    member.setPhoneNumber(readStringOrNull());
+                } else {
+                    skipValue();
+                }
+            } while (nextIs(','));
+            expect('}');
+            return member;
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // a string, a number or a literal such as true, as text; null stands for itself
+    private String readStringOrNull() throws IOException {
+        int c = peekToken();
+        if (c == '"') {
+            return readString();
+        }
+        if (c == '{' || c == '[') {
+            throw new IllegalArgumentException("Expected a string or a number but found '" + (char) c + "'");
+        }
+        String value = readLiteral();
+        return "null".equals(value) ? null : value;
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        for (int c = read(); c != '"'; c = read()) {
+            if (c == -1) {
+                throw new IllegalArgumentException("Unterminated string");
+            }
+            if (c == '\\') {
+                c = read();
+                switch (c) {
+                    case 'b':
+                        c = '\b';
+                        break;
+                    case 'f':
+                        c = '\f';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'u':
+                        char[] hex = new char[4];
+                        for (int i = 0; i < 4; i++) {
+                            hex[i] = (char) read();
+                        }
+                        c = Integer.parseInt(new String(hex), 16);
+                        break;
+                    case -1:
+                        throw new IllegalArgumentException("Unterminated string");
+                    default:
+                        // \" \\ and \/ stand for themselves
+                }
+            }
+            value.append((char) c);
+        }
+        return value.toString();
+    }
+
+    // skips a number, a literal, a string or a nested object or array
+    private void skipValue() throws IOException {
+        int c = peekToken();
+        if (c == '"') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = peekToken();
+                if (c == '"') {
+                    readString();
+                    continue;
+                }
+                c = read();
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                } else if (c == -1) {
+                    throw new IllegalArgumentException("Unexpected end of the document");
+                }
+            } while (depth > 0);
+        } else {
+            readLiteral();
+        }
+    }
+
+    // reads a number or a literal up to the next separator
+    private String readLiteral() throws IOException {
+        StringBuilder value = new StringBuilder();
+        int c = peekToken();
+        while (c != ',' && c != '}' && c != ']' && c != -1 && !Character.isWhitespace(c)) {
+            value.append((char) read());
+            c = peek();
+        }
+        if (value.length() == 0) {
+            throw new IllegalArgumentException("Expected a value");
+        }
+        return value.toString();
+    }
+
+    private boolean nextIs(char expected) throws IOException {
+        if (peekToken() == expected) {
+            read();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = peekToken();
+        if (c != expected) {
+            throw new IllegalArgumentException("Expected '" + expected + "' but found "
+                    + (c == -1 ? "the end of the document" : "'" + (char) c + "'"));
+        }
+        read();
+    }
+
+    // the next character that is not whitespace, without consuming it
+    private int peekToken() throws IOException {
+        int c = peek();
+        while (c != -1 && Character.isWhitespace(c)) {
+            read();
+            c = peek();
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        peeked = -2;
+        return c;
+    }
+}
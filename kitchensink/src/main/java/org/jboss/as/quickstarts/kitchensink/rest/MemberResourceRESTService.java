@@ -16,8 +16,18 @@
  */
 package org.jboss.as.quickstarts.kitchensink.rest;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -25,23 +35,33 @@ import java.util.logging.Logger;
 
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
-import javax.persistence.NoResultException;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
-import javax.validation.ValidationException;
 import javax.validation.Validator;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
 
+import org.jboss.as.quickstarts.kitchensink.data.MemberChangeSequence;
 import org.jboss.as.quickstarts.kitchensink.data.MemberRepository;
 import org.jboss.as.quickstarts.kitchensink.model.Member;
+import org.jboss.as.quickstarts.kitchensink.model.MemberSummary;
+import org.jboss.as.quickstarts.kitchensink.service.DuplicateEmailException;
+import org.jboss.as.quickstarts.kitchensink.service.MemberBatchRegistration;
 import org.jboss.as.quickstarts.kitchensink.service.MemberRegistration;
 
 /**
@@ -53,6 +73,21 @@ import org.jboss.as.quickstarts.kitchensink.service.MemberRegistration;
 @RequestScoped
 public class MemberResourceRESTService {
 
+    public static final String DEFAULT_PAGE_SIZE = "100";
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * The number of members of a batch import that are validated and registered together.
+     */
+    public static final int BATCH_CHUNK_SIZE = 500;
+
+    /**
+     * The number of members that were not created that the response of a batch import lists, the others are only
+     * counted.
+     */
+    public static final int MAX_REPORTED_FAILURES = 1000;
+
     @Inject
     private Logger log;
 
@@ -62,24 +97,93 @@ public class MemberResourceRESTService {
     @Inject
     private MemberRepository repository;
 
+    @Inject
+    private MemberChangeSequence changeSequence;
+
     @Inject
     MemberRegistration registration;
 
+    @Inject
+    MemberBatchRegistration batchRegistration;
+
+    @Inject
+    private MemberBatchValidator batchValidator;
+
+    /**
+     * Lists the members ordered by name, one page at a time. A page is located by the name and id of the last member of
+     * the previous page rather than by an offset, so every page costs the same however far into the list it is. When
+     * there are more members, the response has a <code>Link</code> header pointing to the next page.
+     * <p/>
+     * The response has an ETag that changes whenever a member is registered, a client that sends it back in
+     * <code>If-None-Match</code> gets <code>304 Not Modified</code> until then, without the members being read.
+     * 
+     * @param after <code>name,id</code> of the last member of the previous page, omitted for the first page
+     * @param limit the number of members per page, up to {@value #MAX_PAGE_SIZE}
+     */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public List<Member> listAllMembers() {
-        return repository.findAllOrderedByName();
+    public Response listAllMembers(@QueryParam("after") String after,
+            @QueryParam("limit") @DefaultValue(DEFAULT_PAGE_SIZE) int limit, @Context UriInfo uriInfo,
+            @Context Request request) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+        }
+        String afterName = null;
+        Long afterId = null;
+        if (after != null) {
+            // the name may contain commas, the id is after the last one
+            int comma = after.lastIndexOf(',');
+            if (comma < 0) {
+                throw new WebApplicationException(Response.Status.BAD_REQUEST);
+            }
+            try {
+                afterId = Long.valueOf(after.substring(comma + 1));
+            } catch (NumberFormatException e) {
+                throw new WebApplicationException(Response.Status.BAD_REQUEST);
+            }
+            afterName = after.substring(0, comma);
+        }
+
+        // every page has the tag of the whole list, which changes whenever a member is registered
+        EntityTag tag = new EntityTag(changeSequence.current());
+        Response.ResponseBuilder builder = request.evaluatePreconditions(tag);
+        if (builder != null) {
+            return builder.cacheControl(revalidate()).build();
+        }
+
+        // one more than asked for tells whether there is a next page
+        List<MemberSummary> members = repository.findPageOrderedByName(afterName, afterId, limit + 1);
+        builder = Response.ok().tag(tag).cacheControl(revalidate());
+        if (members.size() > limit) {
+            members = new ArrayList<MemberSummary>(members.subList(0, limit));
+            MemberSummary last = members.get(limit - 1);
+            URI next = uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam("after", encode(last.getName() + "," + last.getId()))
+                    .replaceQueryParam("limit", limit).buildFromEncoded();
+            builder.header("Link", "<" + next + ">; rel=\"next\"");
+        }
+        return builder.entity(new GenericEntity<List<MemberSummary>>(members) {
+        }).build();
     }
 
     @GET
     @Path("/{id:[0-9][0-9]*}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Member lookupMemberById(@PathParam("id") long id) {
+    public Response lookupMemberById(@PathParam("id") long id, @Context Request request) {
+        // only the version is read to answer a client that holds the current member already
+        Long version = repository.findVersionById(id);
+        if (version == null) {
+            throw new WebApplicationException(Response.Status.NOT_FOUND);
+        }
+        Response.ResponseBuilder builder = request.evaluatePreconditions(memberTag(id, version));
+        if (builder != null) {
+            return builder.cacheControl(revalidate()).build();
+        }
         Member member = repository.findById(id);
         if (member == null) {
             throw new WebApplicationException(Response.Status.NOT_FOUND);
         }
-        return member;
+        return Response.ok(member).tag(memberTag(id, member.getVersion())).cacheControl(revalidate()).build();
     }
 
     /**
@@ -104,7 +208,7 @@ public class MemberResourceRESTService {
         } catch (ConstraintViolationException ce) {
             // Handle bean validation issues
             builder = createViolationResponse(ce.getConstraintViolations());
-        } catch (ValidationException e) {
+        } catch (DuplicateEmailException e) {
             // Handle the unique constrain violation
             Map<String, String> responseObj = new HashMap<String, String>();
             responseObj.put("email", "Email taken");
@@ -119,32 +223,162 @@ public class MemberResourceRESTService {
         return builder.build();
     }
 
+    /**
+     * Creates the members of a JSON array. The array is read, validated and registered {@value #BATCH_CHUNK_SIZE}
+     * members at a time, so the request is not held in memory whatever the number of members. The response is only
+     * written once the whole request has been read, which a client that sends its request before reading the response
+     * relies on.
+     * <p/>
+     * The response is a JSON object with the number of members <code>created</code>, <code>invalid</code>, in
+     * <code>conflict</code> with an existing email and in <code>error</code>, and a <code>failures</code> array with
+     * the index of each member that was not created, its status and a map of fields and related errors, the same as
+     * for a single member. Only the first {@value #MAX_REPORTED_FAILURES} failures are listed, the number of the others
+     * is given as <code>unreported</code>. Each chunk of members is registered in a transaction of its own. If the request is not a
+     * well-formed JSON array, the members read before the error are created and the last failure is an
+     * <code>error</code>.
+     */
+    @POST
+    @Path("/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response createMembers(InputStream body) throws IOException {
+        BatchResults results = new BatchResults();
+        MemberJsonReader members = new MemberJsonReader(new BufferedReader(new InputStreamReader(body, "UTF-8")));
+        List<Member> chunk = new ArrayList<Member>(BATCH_CHUNK_SIZE);
+        String malformed = null;
+        while (malformed == null) {
+            try {
+                if (!members.hasNext()) {
+                    break;
+                }
+                chunk.add(members.next());
+            } catch (IllegalArgumentException e) {
+                // the rest of the request can not be read
+                malformed = e.getMessage();
+            }
+            if (chunk.size() == BATCH_CHUNK_SIZE) {
+                importChunk(chunk, results);
+                chunk.clear();
+            }
+        }
+        importChunk(chunk, results);
+        if (malformed != null) {
+            results.failed("error", Collections.singletonMap("error", malformed));
+        }
+        return Response.ok(results.toMap()).build();
+    }
+
+    private void importChunk(List<Member> chunk, BatchResults results) {
+        List<Set<ConstraintViolation<Member>>> violations = batchValidator.validate(chunk);
+        List<Member> valid = new ArrayList<Member>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (violations.get(i).isEmpty()) {
+                valid.add(chunk.get(i));
+            }
+        }
+        boolean registered = true;
+        if (!valid.isEmpty()) {
+            try {
+                batchRegistration.registerAll(valid);
+            } catch (Exception e) {
+                log.fine("Batch registration rolled back: " + e.getMessage());
+                registered = false;
+            }
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            Member member = chunk.get(i);
+            if (!violations.get(i).isEmpty()) {
+                Map<String, String> errors = new HashMap<String, String>();
+                for (ConstraintViolation<Member> violation : violations.get(i)) {
+                    errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+                }
+                results.failed("invalid", errors);
+            } else if (registered) {
+                results.created();
+            } else {
+                // the chunk was rolled back, the members are registered one by one to find out which of them failed
+                member.setId(null);
+                try {
+                    registration.register(member);
+                    results.created();
+                } catch (DuplicateEmailException e) {
+                    results.failed("conflict", Collections.singletonMap("email", "Email taken"));
+                } catch (Exception e) {
+                    results.failed("error", Collections.singletonMap("error", e.getMessage()));
+                }
+            }
+        }
+    }
+
+    /**
+     * The outcome of a batch import: a count per status, and the members that were not created.
+     */
+    private static class BatchResults {
+
+        private final Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+
+        private final List<Map<String, Object>> failures = new ArrayList<Map<String, Object>>();
+
+        private int index;
+
+        private int unreported;
+
+        BatchResults() {
+            for (String status : new String[] { "created", "invalid", "conflict", "error" }) {
+                counts.put(status, 0);
+            }
+        }
+
+        void created() {
+            counts.put("created", counts.get("created") + 1);
+            index++;
+        }
+
+        void failed(String status, Map<String, String> errors) {
+            counts.put(status, counts.get(status) + 1);
+            if (failures.size() == MAX_REPORTED_FAILURES) {
+                unreported++;
+                index++;
+                return;
+            }
+            Map<String, Object> failure = new LinkedHashMap<String, Object>();
+            failure.put("index", index++);
+            failure.put("status", status);
+            failure.put("errors", errors);
+            failures.add(failure);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<String, Object>(counts);
+            map.put("failures", failures);
+            if (unreported > 0) {
+                map.put("unreported", unreported);
+            }
+            return map;
+        }
+    }
+
     /**
      * <p>
      * Validates the given Member variable and throws validation exceptions based on the type of error. If the error is standard
      * bean validation errors then it will throw a ConstraintValidationException with the set of the constraints violated.
      * </p>
      * <p>
-     * If the error is caused because an existing member with the same email is registered it throws a regular validation
-     * exception so that it can be interpreted separately.
+     * The uniqueness of the email address is not checked here, the registration relies on the unique constraint of the
+     * members table instead and fails with a {@link DuplicateEmailException}.
      * </p>
      * 
      * @param member Member to be validated
      * @throws ConstraintViolationException If Bean Validation errors exist
-     * @throws ValidationException If member with the same email already exists
      */
-    private void validateMember(Member member) throws ConstraintViolationException, ValidationException {
+    private void validateMember(Member member) throws ConstraintViolationException {
         // Create a bean validator and check for issues.
         Set<ConstraintViolation<Member>> violations = validator.validate(member);
 
         if (!violations.isEmpty()) {
             throw new ConstraintViolationException(new HashSet<ConstraintViolation<?>>(violations));
         }
-
-        // Check the uniqueness of the email address
-        if (emailAlreadyExists(member.getEmail())) {
-            throw new ValidationException("Unique Email Violation");
-        }
     }
 
     /**
@@ -166,20 +400,23 @@ public class MemberResourceRESTService {
         return Response.status(Response.Status.BAD_REQUEST).entity(responseObj);
     }
 
-    /**
-     * Checks if a member with the same email address is already registered. This is the only way to easily capture the
-     * "@UniqueConstraint(columnNames = "email")" constraint from the Member class.
-     * 
-     * @param email The email to check
-     * @return True if the email already exists, and false otherwise
-     */
-    public boolean emailAlreadyExists(String email) {
-        Member member = null;
+    private static String encode(String value) {
         try {
-            member = repository.findByEmail(email);
-        } catch (NoResultException e) {
-            // ignore
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
         }
-        return member != null;
+    }
+
+    // a strong ETag, a member with the same version has the same representation
+    private static EntityTag memberTag(long id, long version) {
+        return new EntityTag(id + "-" + version);
+    }
+
+    // the response may be kept by the client, but is checked with its ETag before it is used again
+    private static CacheControl revalidate() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+        return cacheControl;
     }
 }
@@ -0,0 +1,36 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.kitchensink.service;
+
+import javax.ejb.ApplicationException;
+
+/**
+ * Thrown by {@link MemberRegistration} and {@link MemberBatchRegistration} when the email of a new member is already
+ * registered. The registration is rolled back.
+ */
+@SuppressWarnings("serial")
+@ApplicationException(rollback = true)
+public class DuplicateEmailException extends Exception {
+
+    public DuplicateEmailException(String email) {
+        super("Email " + email + " is already registered");
+    }
+
+    public DuplicateEmailException() {
+        super("An email is already registered");
+    }
+}
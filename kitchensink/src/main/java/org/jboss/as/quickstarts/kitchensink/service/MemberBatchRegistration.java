@@ -0,0 +1,80 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.kitchensink.service;
+
+import org.jboss.as.quickstarts.kitchensink.model.Member;
+
+import javax.ejb.Stateless;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Registers many members in one transaction. The inserts are sent to the database in JDBC batches (see
+ * <code>hibernate.jdbc.batch_size</code> in persistence.xml) and the persistence context is cleared after every batch,
+ * so it never holds more than {@value #FLUSH_INTERVAL} members.
+ */
+@Stateless
+public class MemberBatchRegistration {
+
+    /**
+     * The number of members inserted between two flushes, the same as <code>hibernate.jdbc.batch_size</code>.
+     */
+    public static final int FLUSH_INTERVAL = 50;
+
+    @Inject
+    private Logger log;
+
+    @Inject
+    private EntityManager em;
+
+    @Inject
+    private Event<MembersImported> importEventSrc;
+
+    /**
+     * Registers all the members or none of them. The members are expected to be valid already.
+     * 
+     * @throws DuplicateEmailException if the email of any of the members is already registered or used twice among
+     *         them, the caller can then register the members one by one to find out which
+     */
+    public void registerAll(List<Member> members) throws Exception {
+        log.fine("Registering " + members.size() + " members");
+        for (int i = 0; i < members.size(); i++) {
+            em.persist(members.get(i));
+            if ((i + 1) % FLUSH_INTERVAL == 0) {
+                flushAndClear();
+            }
+        }
+        flushAndClear();
+        importEventSrc.fire(new MembersImported(members.size()));
+    }
+
+    private void flushAndClear() throws DuplicateEmailException {
+        try {
+            em.flush();
+        } catch (PersistenceException e) {
+            if (MemberRegistration.isDuplicateEmail(e)) {
+                throw new DuplicateEmailException();
+            }
+            throw e;
+        }
+        em.clear();
+    }
+}
@@ -16,12 +16,14 @@
  */
 package org.jboss.as.quickstarts.kitchensink.service;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.jboss.as.quickstarts.kitchensink.model.Member;
 
 import javax.ejb.Stateless;
 import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
 import java.util.logging.Logger;
 
 // The @Stateless annotation eliminates the need for manual transaction demarcation
@@ -37,9 +39,41 @@ public class MemberRegistration {
     @Inject
     private Event<Member> memberEventSrc;
 
+    /**
+     * Registers the member with a single insert. The uniqueness of the email is left to the unique constraint of the
+     * members table, which unlike a query made beforehand also holds for concurrent registrations.
+     * 
+     * @throws DuplicateEmailException if a member with the same email is already registered
+     */
     public void register(Member member) throws Exception {
         log.info("Registering " + member.getName());
         em.persist(member);
+        try {
+            // insert now rather than at commit, so that a duplicate email can be reported
+            em.flush();
+        } catch (PersistenceException e) {
+            if (isDuplicateEmail(e)) {
+                throw new DuplicateEmailException(member.getEmail());
+            }
+            throw e;
+        }
         memberEventSrc.fire(member);
     }
+
+    // only a violation of the unique constraint on the email is a duplicate email, other constraint violations are
+    // errors of their own; databases differ in the case and decoration of the constraint name they report
+    static boolean isDuplicateEmail(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException) {
+                ConstraintViolationException violation = (ConstraintViolationException) t;
+                String name = violation.getConstraintName();
+                if (name == null) {
+                    // the dialect could not extract the name, the message of the database usually holds it
+                    name = violation.getSQLException().getMessage();
+                }
+                return name != null && name.toLowerCase().contains(Member.EMAIL_CONSTRAINT);
+            }
+        }
+        return false;
+    }
 }
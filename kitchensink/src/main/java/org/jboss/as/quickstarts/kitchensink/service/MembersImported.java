@@ -0,0 +1,37 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.kitchensink.service;
+
+/**
+ * Fired by {@link MemberBatchRegistration} once for every chunk of members it has registered, instead of one event per
+ * member, so that observers need not keep the imported members.
+ */
+public class MembersImported {
+
+    private final int count;
+
+    public MembersImported(int count) {
+        this.count = count;
+    }
+
+    /**
+     * Returns the number of members registered.
+     */
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.kitchensink.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+
+import org.jboss.as.quickstarts.kitchensink.model.Member;
+import org.jboss.as.quickstarts.kitchensink.rest.MemberJsonReader;
+import org.junit.Test;
+
+/**
+ * A plain unit test, {@link MemberJsonReader} needs no container.
+ */
+public class MemberJsonReaderTest {
+
+    @Test
+    public void testReadsEveryMember() throws Exception {
+        MemberJsonReader reader = reader("[ {\"name\": \"Jane Doe\", \"email\": \"jane@mailinator.com\", "
+                + "\"phoneNumber\": \"2125551234\"},\n {\"name\": \"John \\\"Jack\\\" Doe\", \"email\": null} ]");
+
+        assertTrue(reader.hasNext());
+        Member jane = reader.next();
+        assertEquals("Jane Doe", jane.getName());
+        assertEquals("jane@mailinator.com", jane.getEmail());
+        assertEquals("2125551234", jane.getPhoneNumber());
+
+        assertTrue(reader.hasNext());
+        Member john = reader.next();
+        assertEquals("John \"Jack\" Doe", john.getName());
+        assertNull(john.getEmail());
+        assertNull(john.getPhoneNumber());
+
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testReadsNumbersAsText() throws Exception {
+        MemberJsonReader reader = reader("[{\"name\":\"Jane Doe\",\"phoneNumber\":2125551234}]");
+
+        assertEquals("2125551234", reader.next().getPhoneNumber());
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testSkipsOtherProperties() throws Exception {
+        MemberJsonReader reader = reader("[{\"id\":7,\"tags\":[\"a\",{\"b\":\"]\"}],\"active\":true,"
+                + "\"name\":\"Jane Doe\"}]");
+
+        Member member = reader.next();
+        assertNull(member.getId());
+        assertEquals("Jane Doe", member.getName());
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testReadsAnEmptyArray() throws Exception {
+        assertFalse(reader(" [ ] ").hasNext());
+    }
+
+    @Test
+    public void testRejectsAMalformedDocument() throws Exception {
+        MemberJsonReader reader = reader("[{\"name\":\"Jane Doe\"} {\"name\":\"John Doe\"}]");
+
+        assertEquals("Jane Doe", reader.next().getName());
+        try {
+            reader.hasNext();
+            fail("The missing separator is not reported");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testRejectsAnObjectAsName() throws Exception {
+        try {
+            reader("[{\"name\":{\"first\":\"Jane\"}}]").next();
+            fail("An object is read as a name");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static MemberJsonReader reader(String json) {
+        return new MemberJsonReader(new StringReader(json));
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.kitchensink.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Looks members up by id and registers new ones through the REST service from several threads for a while, and prints
+ * the requests per second and the statements sent to the database per request, as counted by the statistics service.
+ * Run it against an application built with and without the l2-cache profile to compare them:
+ * 
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.jboss.as.quickstarts.kitchensink.test.MemberReadLoadClient \
+ *     -Dexec.args="http://localhost:8080/jboss-as-kitchensink/rest 8 30 95"
+ * </pre>
+ * 
+ * The arguments are the URL of the REST services, the number of threads, the number of seconds to run and the
+ * percentage of requests that are reads.
+ */
+public class MemberReadLoadClient {
+
+    private static final int MEMBERS = 100;
+
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8080/jboss-as-kitchensink/rest";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        final int readPercentage = args.length > 3 ? Integer.parseInt(args[3]) : 95;
+        final String members = url + "/members";
+        final String run = Long.toString(System.currentTimeMillis(), 36);
+        final AtomicInteger sequence = new AtomicInteger();
+
+        // register the members that are read, then find out their ids
+        for (int i = 0; i < MEMBERS; i++) {
+            register(members, "read" + run + "." + sequence.incrementAndGet() + "@mailinator.com");
+        }
+        final List<Long> ids = new ArrayList<Long>();
+        Matcher matcher = ID.matcher(get(members + "?limit=" + MEMBERS));
+        while (matcher.find()) {
+            ids.add(Long.valueOf(matcher.group(1)));
+        }
+
+        String before = get(url + "/statistics");
+        final long end = System.currentTimeMillis() + seconds * 1000L;
+        final AtomicLong reads = new AtomicLong();
+        final AtomicLong writes = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                public void run() {
+                    Random random = new Random();
+                    try {
+                        while (System.currentTimeMillis() < end) {
+                            if (random.nextInt(100) < readPercentage) {
+                                Long id = ids.get(random.nextInt(ids.size()));
+                                if (status(members + "/" + id) == HttpURLConnection.HTTP_OK) {
+                                    reads.incrementAndGet();
+                                } else {
+                                    failed.incrementAndGet();
+                                }
+                            } else {
+                                String email = "write" + run + "." + sequence.incrementAndGet() + "@mailinator.com";
+                                if (register(members, email) == HttpURLConnection.HTTP_OK) {
+                                    writes.incrementAndGet();
+                                } else {
+                                    failed.incrementAndGet();
+                                }
+                            }
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        done.await();
+        String after = get(url + "/statistics");
+
+        long requests = reads.get() + writes.get();
+        long statements = delta(before, after, "prepareStatementCount");
+        System.out.println("Read " + reads.get() + " and registered " + writes.get() + " members in " + seconds
+                + " s with " + threads + " threads: " + requests / seconds + " requests/s, " + failed.get()
+                + " failed");
+        System.out.println(statements + " statements sent to the database, "
+                + (requests == 0 ? 0 : (double) statements / requests) + " per request");
+        System.out.println("Second-level cache: " + delta(before, after, "secondLevelCacheHitCount") + " hits, "
+                + delta(before, after, "secondLevelCacheMissCount") + " misses, "
+                + delta(before, after, "secondLevelCachePutCount") + " puts");
+        System.out.println("Query cache: " + delta(before, after, "queryCacheHitCount") + " hits, "
+                + delta(before, after, "queryCacheMissCount") + " misses, "
+                + delta(before, after, "queryCachePutCount") + " puts");
+    }
+
+    private static long delta(String before, String after, String name) {
+        return count(after, name) - count(before, name);
+    }
+
+    private static long count(String statistics, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\":(\\d+)").matcher(statistics);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+
+    private static int status(String url) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        int status = connection.getResponseCode();
+        read(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+        return status;
+    }
+
+    private static String get(String url) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestProperty("Accept", "application/json");
+        return read(connection.getInputStream());
+    }
+
+    private static int register(String url, String email) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        OutputStream out = connection.getOutputStream();
+        out.write(("{\"name\":\"Load Tester\",\"email\":\"" + email + "\",\"phoneNumber\":\"2125551234\"}")
+                .getBytes("UTF-8"));
+        out.close();
+        int status = connection.getResponseCode();
+        read(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+        return status;
+    }
+
+    // reads the whole response, which also lets the connection be reused
+    private static String read(InputStream in) throws Exception {
+        if (in == null) {
+            return "";
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            content.write(buffer, 0, n);
+        }
+        in.close();
+        return content.toString("UTF-8");
+    }
+}
@@ -18,6 +18,8 @@ package org.jboss.as.quickstarts.kitchensink.test;
 
 import static org.junit.Assert.assertNotNull;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Logger;
 
 import javax.inject.Inject;
@@ -25,7 +27,11 @@ import javax.inject.Inject;
 import org.jboss.arquillian.container.test.api.Deployment;
 import org.jboss.arquillian.junit.Arquillian;
 import org.jboss.as.quickstarts.kitchensink.model.Member;
+import org.jboss.as.quickstarts.kitchensink.model.MemberSummary;
+import org.jboss.as.quickstarts.kitchensink.service.DuplicateEmailException;
+import org.jboss.as.quickstarts.kitchensink.service.MemberBatchRegistration;
 import org.jboss.as.quickstarts.kitchensink.service.MemberRegistration;
+import org.jboss.as.quickstarts.kitchensink.service.MembersImported;
 import org.jboss.as.quickstarts.kitchensink.util.Resources;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
@@ -39,7 +45,8 @@ public class MemberRegistrationTest {
     @Deployment
     public static Archive<?> createTestArchive() {
         return ShrinkWrap.create(WebArchive.class, "test.war")
-                .addClasses(Member.class, MemberRegistration.class, Resources.class)
+                .addClasses(Member.class, MemberSummary.class, MemberRegistration.class, DuplicateEmailException.class,
+                        MemberBatchRegistration.class, MembersImported.class, Resources.class)
                 .addAsResource("META-INF/test-persistence.xml", "META-INF/persistence.xml")
                 .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml")
                 // Deploy our test datasource
@@ -49,6 +56,9 @@ public class MemberRegistrationTest {
     @Inject
     MemberRegistration memberRegistration;
 
+    @Inject
+    MemberBatchRegistration memberBatchRegistration;
+
     @Inject
     Logger log;
 
@@ -63,4 +73,49 @@ public class MemberRegistrationTest {
         log.info(newMember.getName() + " was persisted with id " + newMember.getId());
     }
 
+    @Test(expected = DuplicateEmailException.class)
+    public void testRegisterDuplicateEmail() throws Exception {
+        Member first = new Member();
+        first.setName("John Doe");
+        first.setEmail("john@mailinator.com");
+        first.setPhoneNumber("2125551234");
+        memberRegistration.register(first);
+
+        Member second = new Member();
+        second.setName("Johnny Doe");
+        second.setEmail("john@mailinator.com");
+        second.setPhoneNumber("2125554321");
+        memberRegistration.register(second);
+    }
+
+    @Test
+    public void testRegisterAll() throws Exception {
+        // more members than are flushed at once
+        List<Member> members = new ArrayList<Member>();
+        for (int i = 0; i < MemberBatchRegistration.FLUSH_INTERVAL * 2 + 1; i++) {
+            Member member = new Member();
+            member.setName("Batch Member");
+            member.setEmail("batch" + i + "@mailinator.com");
+            member.setPhoneNumber("2125551234");
+            members.add(member);
+        }
+        memberBatchRegistration.registerAll(members);
+        for (Member member : members) {
+            assertNotNull(member.getId());
+        }
+    }
+
+    @Test(expected = DuplicateEmailException.class)
+    public void testRegisterAllDuplicateEmail() throws Exception {
+        List<Member> members = new ArrayList<Member>();
+        for (int i = 0; i < 2; i++) {
+            Member member = new Member();
+            member.setName("Batch Twin");
+            member.setEmail("twin@mailinator.com");
+            member.setPhoneNumber("2125551234");
+            members.add(member);
+        }
+        memberBatchRegistration.registerAll(members);
+    }
+
 }
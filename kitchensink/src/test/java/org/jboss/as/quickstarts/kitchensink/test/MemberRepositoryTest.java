@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.kitchensink.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.as.quickstarts.kitchensink.data.MemberRepository;
+import org.jboss.as.quickstarts.kitchensink.model.Member;
+import org.jboss.as.quickstarts.kitchensink.model.MemberSummary;
+import org.jboss.as.quickstarts.kitchensink.service.DuplicateEmailException;
+import org.jboss.as.quickstarts.kitchensink.service.MemberRegistration;
+import org.jboss.as.quickstarts.kitchensink.util.Resources;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(Arquillian.class)
+public class MemberRepositoryTest {
+    @Deployment
+    public static Archive<?> createTestArchive() {
+        return ShrinkWrap.create(WebArchive.class, "test.war")
+                .addClasses(Member.class, MemberSummary.class, MemberRepository.class, MemberRegistration.class,
+                        DuplicateEmailException.class, Resources.class)
+                .addAsResource("META-INF/test-persistence.xml", "META-INF/persistence.xml")
+                .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml")
+                // Deploy our test datasource
+                .addAsWebInfResource("test-ds.xml");
+    }
+
+    @Inject
+    MemberRegistration memberRegistration;
+
+    @Inject
+    MemberRepository repository;
+
+    @Test
+    public void testPagesFollowTheNameOrder() throws Exception {
+        // two members with the same name, the id decides their order
+        register("Ann Page", "ann.page@mailinator.com");
+        register("Bob Page", "bob.page@mailinator.com");
+        register("Bob Page", "bob.page2@mailinator.com");
+        register("Cid Page", "cid.page@mailinator.com");
+
+        List<Member> all = repository.findAllOrderedByName();
+        List<MemberSummary> paged = new ArrayList<MemberSummary>();
+        List<MemberSummary> page = repository.findPageOrderedByName(null, null, 2);
+        while (!page.isEmpty()) {
+            assertTrue(page.size() <= 2);
+            paged.addAll(page);
+            MemberSummary last = page.get(page.size() - 1);
+            page = repository.findPageOrderedByName(last.getName(), last.getId(), 2);
+        }
+
+        assertEquals(all.size(), paged.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(all.get(i).getName(), paged.get(i).getName());
+        }
+        for (int i = 1; i < paged.size(); i++) {
+            MemberSummary previous = paged.get(i - 1);
+            if (previous.getName().equals(paged.get(i).getName())) {
+                assertTrue(previous.getId() < paged.get(i).getId());
+            }
+        }
+    }
+
+    @Test
+    public void testVersionIsReadWithoutTheMember() throws Exception {
+        Member member = register("Vic Version", "vic.version@mailinator.com");
+
+        assertEquals(Long.valueOf(member.getVersion()), repository.findVersionById(member.getId()));
+        assertNull(repository.findVersionById(-1L));
+    }
+
+    private Member register(String name, String email) throws Exception {
+        Member member = new Member();
+        member.setName(name);
+        member.setEmail(email);
+        member.setPhoneNumber("2125551234");
+        memberRegistration.register(member);
+        return member;
+    }
+}
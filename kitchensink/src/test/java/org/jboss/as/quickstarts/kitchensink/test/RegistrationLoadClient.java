@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.kitchensink.test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registers members through the REST service from several threads for a while and prints the registrations per
+ * second. Run it against a deployed application:
+ * 
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.jboss.as.quickstarts.kitchensink.test.RegistrationLoadClient \
+ *     -Dexec.args="http://localhost:8080/jboss-as-kitchensink/rest/members 8 30"
+ * </pre>
+ * 
+ * The arguments are the URL of the members resource, the number of threads and the number of seconds to run.
+ */
+public class RegistrationLoadClient {
+
+    public static void main(String[] args) throws Exception {
+        final String url = args.length > 0 ? args[0] : "http://localhost:8080/jboss-as-kitchensink/rest/members";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        final long end = System.currentTimeMillis() + seconds * 1000L;
+        final String run = Long.toString(System.currentTimeMillis(), 36);
+        final AtomicInteger sequence = new AtomicInteger();
+        final AtomicLong registered = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        while (System.currentTimeMillis() < end) {
+                            String email = "load" + run + "." + sequence.incrementAndGet() + "@mailinator.com";
+                            if (register(url, email) == HttpURLConnection.HTTP_OK) {
+                                registered.incrementAndGet();
+                            } else {
+                                failed.incrementAndGet();
+                            }
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        done.await();
+
+        System.out.println("Registered " + registered.get() + " members in " + seconds + " s with " + threads
+                + " threads: " + registered.get() / seconds + " registrations/s, " + failed.get() + " failed");
+    }
+
+    private static int register(String url, String email) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        OutputStream out = connection.getOutputStream();
+        out.write(("{\"name\":\"Load Tester\",\"email\":\"" + email + "\",\"phoneNumber\":\"2125551234\"}")
+                .getBytes("UTF-8"));
+        out.close();
+        int status = connection.getResponseCode();
+        // read the response so that the connection can be reused
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (in != null) {
+            byte[] buffer = new byte[1024];
+            while (in.read(buffer) >= 0) {
+            }
+            in.close();
+        }
+        return status;
+    }
+}
@@ -22,6 +22,7 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -29,9 +30,11 @@ import java.util.Properties;
  */
 public class FootballManager {
 
-    private static final String JDG_HOST = "jdg.host";
+    static final String JDG_HOST = "jdg.host";
     // Memcached specific properties
     public static final String MEMCACHED_PORT = "jdg.memcached.port";
+    public static final String VALUE_CODEC = "jdg.value.codec";
+    public static final String TEAMS_INDEX_SHARDS = "jdg.teams.index.shards";
 
     private static final String PROPERTIES_FILE = "jdg.properties";
     private static final String msgTeamMissing = "The specified team \"%s\" does not exist, choose next operation\n";
@@ -42,36 +45,38 @@ public class FootballManager {
     private static final String teamsKey = "teams";
 
     private Console con;
-    private MemcachedCache cache;
+    private MemcachedCache<String, Object> cache;
+    private ShardedTeamIndex teams;
 
     public FootballManager(Console con) {
         this.con = con;
-        cache = new MemcachedCache(jdgProperty(JDG_HOST), Integer.parseInt(jdgProperty(MEMCACHED_PORT)));
-        List<String> teams = (List<String>) cache.get(teamsKey);
-        if (teams == null) {
-            teams = new ArrayList<String>();
+        cache = new MemcachedCache<String, Object>(jdgProperty(JDG_HOST), Integer.parseInt(jdgProperty(MEMCACHED_PORT)),
+                createCodec());
+        teams = new ShardedTeamIndex(cache, teamsKey, teamsIndexShards());
+        @SuppressWarnings("unchecked")
+        List<String> legacyTeams = (List<String>) cache.get(teamsKey);
+        if (legacyTeams != null) {
+            // move the team list written by older versions of this quickstart into the index
+            for (String teamName : legacyTeams) {
+                teams.add(teamName);
+            }
+            cache.fastRemove(teamsKey);
+        }
+        if (teams.getAll().isEmpty()) {
             Team t = new Team("Barcelona");
             t.addPlayer("Messi");
             t.addPlayer("Pedro");
             t.addPlayer("Puyol");
-            cache.put(t.getName(), t);
+            cache.fastPut(encode(t.getName()), t);
             teams.add(t.getName());
         }
-        cache.put(teamsKey, teams);
     }
 
     public void addTeam() {
         String teamName = con.readLine(msgEnterTeamName);
-        @SuppressWarnings("unchecked")
-        List<String> teams = (List<String>) cache.get(encode(teamsKey));
-        if (teams == null) {
-            teams = new ArrayList<String>();
-        }
         Team t = new Team(teamName);
-        cache.put(encode(teamName), t);
+        cache.fastPut(encode(teamName), t);
         teams.add(teamName);
-        // maintain a list of teams under common key
-        cache.put(teamsKey, teams);
     }
 
     public void addPlayers() {
@@ -82,7 +87,7 @@ public class FootballManager {
             while (!(playerName = con.readLine("Enter player's name (to stop adding, type \"q\"): ")).equals("q")) {
                 t.addPlayer(playerName);
             }
-            cache.put(encode(teamName), t);
+            cache.fastPut(encode(teamName), t);
         } else {
             con.printf(msgTeamMissing, teamName);
         }
@@ -94,7 +99,7 @@ public class FootballManager {
         Team t = (Team) cache.get(encode(teamName));
         if (t != null) {
             t.removePlayer(playerName);
-            cache.put(encode(teamName), t);
+            cache.fastPut(encode(teamName), t);
         } else {
             con.printf(msgTeamMissing, teamName);
         }
@@ -104,24 +109,25 @@ public class FootballManager {
         String teamName = con.readLine(msgEnterTeamName);
         Team t = (Team) cache.get(encode(teamName));
         if (t != null) {
-            cache.remove(encode(teamName));
-            @SuppressWarnings("unchecked")
-            List<String> teams = (List<String>) cache.get(teamsKey);
-            if (teams != null) {
-                teams.remove(teamName);
-            }
-            cache.put(teamsKey, teams);
+            cache.fastRemove(encode(teamName));
+            teams.remove(teamName);
         } else {
             con.printf(msgTeamMissing, teamName);
         }
     }
 
     public void printTeams() {
-        @SuppressWarnings("unchecked")
-        List<String> teams = (List<String>) cache.get(teamsKey);
-        if (teams != null) {
-            for (String teamName : teams) {
-                con.printf(cache.get(encode(teamName)).toString());
+        List<String> teamNames = teams.getAll();
+        List<String> keys = new ArrayList<String>(teamNames.size());
+        for (String teamName : teamNames) {
+            keys.add(encode(teamName));
+        }
+        // a single multi-get instead of one round trip per team
+        Map<String, Object> teamsByKey = cache.getAll(keys);
+        for (String key : keys) {
+            Object team = teamsByKey.get(key);
+            if (team != null) {
+                con.printf(team.toString());
             }
         }
     }
@@ -149,6 +155,19 @@ public class FootballManager {
         }
     }
 
+    static ValueCodec createCodec() {
+        if ("serialized".equals(jdgProperty(VALUE_CODEC))) {
+            // let the memcached client use Java serialization
+            return null;
+        }
+        return new BinaryValueCodec();
+    }
+
+    static int teamsIndexShards() {
+        String shards = jdgProperty(TEAMS_INDEX_SHARDS);
+        return shards == null ? 16 : Integer.parseInt(shards.trim());
+    }
+
     public static String jdgProperty(String name) {
         Properties props = new Properties();
         try {
@@ -18,11 +18,22 @@ package org.jboss.as.quickstarts.datagrid.memcached;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import net.spy.memcached.CASResponse;
+import net.spy.memcached.CASValue;
+import net.spy.memcached.ConnectionFactory;
+import net.spy.memcached.ConnectionFactoryBuilder;
 import net.spy.memcached.MemcachedClient;
 
 /**
@@ -35,9 +46,28 @@ class MemcachedCache<K, V> implements ConcurrentMap<K, V> {
 
     private MemcachedClient client;
 
+    // how many times putIfAbsent tries to add an entry that keeps being removed before giving up
+    private static final int MAX_PUT_IF_ABSENT_ATTEMPTS = 10;
+
+    // how long to wait for the bulk operations, whose futures are waited for explicitly
+    private long operationTimeout;
+
     MemcachedCache(String hostname, int port) {
+        this(hostname, port, null);
+    }
+
+    /**
+     * @param codec the codec used to store values, when <code>null</code> values are stored using Java serialization
+     */
+    MemcachedCache(String hostname, int port, ValueCodec codec) {
         try {
-            this.client = new MemcachedClient(new InetSocketAddress(hostname, port));
+            ConnectionFactoryBuilder connectionFactory = new ConnectionFactoryBuilder();
+            if (codec != null) {
+                connectionFactory.setTranscoder(new ValueCodecTranscoder(codec));
+            }
+            ConnectionFactory factory = connectionFactory.build();
+            this.operationTimeout = factory.getOperationTimeout();
+            this.client = new MemcachedClient(factory, Arrays.asList(new InetSocketAddress(hostname, port)));
         } catch (IOException e) {
             throw new RuntimeException("Unable to create a Memcached client", e);
         }
@@ -51,15 +81,6 @@ class MemcachedCache<K, V> implements ConcurrentMap<K, V> {
         }
     }
 
-    private Object decode(String s) {
-        if (s == null) {
-            return null;
-        } else {
-            Object o = Base64.decodeToObject(s);
-            return o;
-        }
-    }
-
     @Override
     @SuppressWarnings("unchecked")
     public V get(Object key) {
@@ -67,19 +88,57 @@ class MemcachedCache<K, V> implements ConcurrentMap<K, V> {
         return (V) client.get(stringKey);
     }
 
+    /**
+     * Retrieves several entries with a single multi-key get. Keys that are not present in the cache are not present in the
+     * returned map. Fails if the server does not answer within the operation timeout of the client.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        List<String> stringKeys = new ArrayList<String>(keys.size());
+        for (K key : keys) {
+            stringKeys.add(toStringKey(key));
+        }
+        Future<Map<String, Object>> future = client.asyncGetBulk(stringKeys);
+        Map<String, Object> values;
+        try {
+            values = future.get(operationTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new RuntimeException("getAll() timed out after " + operationTimeout + " ms", e);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        Map<K, V> result = new HashMap<K, V>();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            result.put((K) entry.getKey(), (V) entry.getValue());
+        }
+        return result;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public V put(K key, V value) {
         String stringKey = toStringKey(key);
         V oldValue = (V) client.get(stringKey);
+        fastPut(key, value);
+        return oldValue;
+    }
+
+    /**
+     * Stores the value without fetching the previous one first. Use it instead of {@link #put(Object, Object)} when the
+     * return value is not needed, it saves one round trip.
+     */
+    public void fastPut(K key, V value) {
+        String stringKey = toStringKey(key);
         try {
             if (!client.set(stringKey, 0, value).get()) {
                 throw new RuntimeException("put() failed");
             }
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
-        return oldValue;
     }
 
     @Override
@@ -87,17 +146,52 @@ class MemcachedCache<K, V> implements ConcurrentMap<K, V> {
     public V remove(Object key) {
         String stringKey = toStringKey(key);
         V oldValue = (V) client.get(stringKey);
+        fastRemove(key);
+        return oldValue;
+    }
+
+    /**
+     * Removes the entry without fetching the previous value first. Use it instead of {@link #remove(Object)} when the return
+     * value is not needed, it saves one round trip.
+     */
+    public void fastRemove(Object key) {
+        String stringKey = toStringKey(key);
         try {
             client.delete(stringKey).get();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
-        return oldValue;
     }
 
+    /**
+     * Stores all entries. The set operations are sent without waiting for each other, so the memcached client pipelines
+     * them, and the method only waits for all of them to complete at the end, at most for the operation timeout of the
+     * client. The operations still pending when it expires are cancelled.
+     */
     @Override
     public void putAll(Map<? extends K, ? extends V> m) {
-        throw new UnsupportedOperationException("Unsupported");
+        List<Future<Boolean>> results = new ArrayList<Future<Boolean>>(m.size());
+        for (Map.Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            results.add(client.set(toStringKey(entry.getKey()), 0, entry.getValue()));
+        }
+        long deadline = System.currentTimeMillis() + operationTimeout;
+        try {
+            for (Future<Boolean> result : results) {
+                long remaining = Math.max(deadline - System.currentTimeMillis(), 0);
+                if (!result.get(remaining, TimeUnit.MILLISECONDS)) {
+                    throw new RuntimeException("putAll() failed");
+                }
+            }
+        } catch (TimeoutException e) {
+            for (Future<Boolean> result : results) {
+                result.cancel(false);
+            }
+            throw new RuntimeException("putAll() timed out after " + operationTimeout + " ms", e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
     }
 
     @Override
@@ -120,9 +214,32 @@ class MemcachedCache<K, V> implements ConcurrentMap<K, V> {
         throw new UnsupportedOperationException("Unsupported");
     }
 
+    /**
+     * Uses the memcached <code>add</code> command, which only stores the value if the key does not exist yet. If the
+     * existing entry is removed before it can be read, the value is added again, at most
+     * {@value #MAX_PUT_IF_ABSENT_ATTEMPTS} times.
+     */
     @Override
+    @SuppressWarnings("unchecked")
     public V putIfAbsent(K key, V value) {
-        throw new UnsupportedOperationException("Unsupported");
+        String stringKey = toStringKey(key);
+        try {
+            for (int attempt = 0; attempt < MAX_PUT_IF_ABSENT_ATTEMPTS; attempt++) {
+                if (client.add(stringKey, 0, value).get()) {
+                    return null;
+                }
+                // gets tells a missing entry from one whose value is null
+                CASValue<Object> existing = client.gets(stringKey);
+                if (existing != null) {
+                    return (V) existing.getValue();
+                }
+                // the existing entry was removed in the meantime, try to add again
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        throw new RuntimeException("putIfAbsent() gave up after " + MAX_PUT_IF_ABSENT_ATTEMPTS
+                + " attempts, the entry kept being removed");
     }
 
     @Override
@@ -130,14 +247,49 @@ class MemcachedCache<K, V> implements ConcurrentMap<K, V> {
         throw new UnsupportedOperationException("Unsupported");
     }
 
+    /**
+     * Reads the current value together with its CAS identifier and only writes the new value if the entry has not been
+     * modified since.
+     */
     @Override
     public boolean replace(K key, V oldValue, V newValue) {
-        throw new UnsupportedOperationException("Unsupported");
+        VersionedValue<V> current = getVersioned(key);
+        if (current == null || !oldValue.equals(current.getValue())) {
+            return false;
+        }
+        return replaceWithVersion(key, newValue, current.getVersion());
+    }
+
+    /**
+     * Returns the value together with its CAS identifier, or <code>null</code> if there is no such entry.
+     */
+    @SuppressWarnings("unchecked")
+    public VersionedValue<V> getVersioned(K key) {
+        CASValue<Object> current = client.gets(toStringKey(key));
+        return current == null ? null : new VersionedValue<V>((V) current.getValue(), current.getCas());
+    }
+
+    /**
+     * Stores the value only if the entry has not been modified since it was read by {@link #getVersioned(Object)}.
+     */
+    public boolean replaceWithVersion(K key, V value, long version) {
+        return client.cas(toStringKey(key), version, value) == CASResponse.OK;
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public V replace(K key, V value) {
-        return put(key, value);
+        String stringKey = toStringKey(key);
+        while (true) {
+            CASValue<Object> current = client.gets(stringKey);
+            if (current == null) {
+                return null;
+            }
+            if (client.cas(stringKey, current.getCas(), value) == CASResponse.OK) {
+                return (V) current.getValue();
+            }
+            // modified concurrently, read the new value and try again
+        }
     }
 
     @Override
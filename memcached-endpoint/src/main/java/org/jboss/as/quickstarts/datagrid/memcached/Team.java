@@ -51,6 +51,23 @@ public class Team implements Serializable {
         return teamName;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Team)) {
+            return false;
+        }
+        Team other = (Team) o;
+        return teamName.equals(other.teamName) && players.equals(other.players);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * teamName.hashCode() + players.hashCode();
+    }
+
     @Override
     public String toString() {
         StringBuilder b = new StringBuilder("=== Team: " + teamName + " ===\n");
@@ -0,0 +1,68 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.memcached;
+
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.SerializingTranscoder;
+import net.spy.memcached.transcoders.Transcoder;
+
+/**
+ * Adapts a {@link ValueCodec} to the spymemcached {@link Transcoder} SPI.
+ * <p>
+ * Values written by the codec are tagged with {@link #CODEC_FLAG} in the memcached item flags. Items carrying any other
+ * flags, e.g. entries stored by a client using the default Java serialization, are decoded by a
+ * {@link SerializingTranscoder}, so switching codecs does not make existing entries unreadable.
+ * </p>
+ * 
+ */
+class ValueCodecTranscoder implements Transcoder<Object> {
+
+    /**
+     * Outside of the bits used by {@link SerializingTranscoder} for its own types.
+     */
+    static final int CODEC_FLAG = 1 << 16;
+
+    private final ValueCodec codec;
+    private final SerializingTranscoder fallback = new SerializingTranscoder();
+
+    ValueCodecTranscoder(ValueCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public boolean asyncDecode(CachedData d) {
+        return false;
+    }
+
+    @Override
+    public CachedData encode(Object o) {
+        return new CachedData(CODEC_FLAG, codec.encode(o), getMaxSize());
+    }
+
+    @Override
+    public Object decode(CachedData d) {
+        if (d.getFlags() == CODEC_FLAG) {
+            return codec.decode(d.getData());
+        }
+        return fallback.decode(d);
+    }
+
+    @Override
+    public int getMaxSize() {
+        return CachedData.MAX_SIZE;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.memcached;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.SerializingTranscoder;
+import net.spy.memcached.transcoders.Transcoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encode and decode cost of the default Java serialization transcoder and of the {@link BinaryValueCodec} for the
+ * value shapes used by the quickstart. The encoded size of every value, i.e. the bytes sent on the wire, is printed when the
+ * benchmark is set up.
+ * <p>
+ * To time the decoding of teams only, run:
+ * <code>mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test -Dexec.args="-cp %classpath org.openjdk.jmh.Main ValueCodecBenchmark.decodeTeam"</code>
+ * </p>
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ValueCodecBenchmark {
+
+    @Param({ "serialized", "binary" })
+    public String codecName;
+
+    private Transcoder<Object> transcoder;
+    private Team team;
+    private List<String> teamNames;
+    private CachedData encodedTeam;
+    private CachedData encodedTeamNames;
+
+    @Setup
+    public void setUp() {
+        transcoder = "binary".equals(codecName) ? new ValueCodecTranscoder(new BinaryValueCodec())
+                : new SerializingTranscoder();
+
+        team = new Team("Barcelona");
+        teamNames = new ArrayList<String>();
+        for (int i = 0; i < 11; i++) {
+            team.addPlayer("Player number " + i);
+            teamNames.add("Team number " + i);
+        }
+        encodedTeam = transcoder.encode(team);
+        encodedTeamNames = transcoder.encode(teamNames);
+        System.out.printf("%n%s: Team = %d bytes, List<String> = %d bytes%n", codecName, encodedTeam.getData().length,
+                encodedTeamNames.getData().length);
+    }
+
+    @Benchmark
+    public CachedData encodeTeam() {
+        return transcoder.encode(team);
+    }
+
+    @Benchmark
+    public Object decodeTeam() {
+        return transcoder.decode(encodedTeam);
+    }
+
+    @Benchmark
+    public CachedData encodeTeamNames() {
+        return transcoder.encode(teamNames);
+    }
+
+    @Benchmark
+    public Object decodeTeamNames() {
+        return transcoder.decode(encodedTeamNames);
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.rest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact binary format for the values used by this quickstart.
+ * <p>
+ * Every value starts with a one byte type tag. Strings are written as a variable length byte count followed by their UTF-8
+ * bytes, a {@link Team} is its name followed by the number of players and the player names, and a list of strings is its size
+ * followed by the elements. Values of any other type fall back to plain Java serialization.
+ * </p>
+ * 
+ */
+public class BinaryValueCodec implements ValueCodec {
+
+    public static final String CONTENT_TYPE = "application/octet-stream";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_TEAM = 2;
+    private static final byte TYPE_STRING_LIST = 3;
+    private static final byte TYPE_INTEGER = 4;
+    private static final byte TYPE_LONG = 5;
+    private static final byte TYPE_BYTES = 6;
+    private static final byte TYPE_SERIALIZED = 127;
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        if (value == null) {
+            out.write(TYPE_NULL);
+        } else if (value instanceof String) {
+            out.write(TYPE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Team) {
+            Team team = (Team) value;
+            out.write(TYPE_TEAM);
+            writeString(out, team.getName());
+            writeStrings(out, team.getPlayers());
+        } else if (value instanceof List<?> && isStringList((List<?>) value)) {
+            out.write(TYPE_STRING_LIST);
+            writeStrings(out, (List<?>) value);
+        } else if (value instanceof Integer) {
+            out.write(TYPE_INTEGER);
+            writeVarLong(out, zigZag((Integer) value));
+        } else if (value instanceof Long) {
+            out.write(TYPE_LONG);
+            writeVarLong(out, zigZag((Long) value));
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out.write(TYPE_BYTES);
+            writeVarLong(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        } else {
+            out.write(TYPE_SERIALIZED);
+            serialize(out, value);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        Reader in = new Reader(data);
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return in.readString();
+            case TYPE_TEAM:
+                Team team = new Team(in.readString());
+                int players = in.readLength();
+                for (int i = 0; i < players; i++) {
+                    team.addPlayer(in.readString());
+                }
+                return team;
+            case TYPE_STRING_LIST:
+                int size = in.readLength();
+                List<String> list = new ArrayList<String>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(in.readString());
+                }
+                return list;
+            case TYPE_INTEGER:
+                return Integer.valueOf((int) unZigZag(in.readVarLong()));
+            case TYPE_LONG:
+                return Long.valueOf(unZigZag(in.readVarLong()));
+            case TYPE_BYTES:
+                return in.readBytes(in.readLength());
+            case TYPE_SERIALIZED:
+                return deserialize(data, 1);
+            default:
+                throw new IllegalArgumentException("Unknown value type " + type);
+        }
+    }
+
+    private static boolean isStringList(List<?> list) {
+        for (Object element : list) {
+            if (!(element instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeStrings(ByteArrayOutputStream out, List<?> strings) {
+        writeVarLong(out, strings.size());
+        for (Object s : strings) {
+            writeString(out, (String) s);
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String s) {
+        byte[] bytes = s.getBytes(UTF8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void serialize(ByteArrayOutputStream out, Object value) {
+        try {
+            ObjectOutputStream oos = new ObjectOutputStream(out);
+            oos.writeObject(value);
+            oos.close();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to serialize " + value.getClass().getName(), e);
+        }
+    }
+
+    private static Object deserialize(byte[] data, int offset) {
+        try {
+            ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data, offset, data.length - offset));
+            try {
+                return ois.readObject();
+            } finally {
+                ois.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to deserialize value", e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unable to deserialize value", e);
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        byte readByte() {
+            checkAvailable(1);
+            return data[position++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (shift > 63) {
+                    throw new IllegalArgumentException("Malformed variable length number");
+                }
+                b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        int readLength() {
+            long length = readVarLong();
+            if (length < 0 || length > data.length - position) {
+                throw new IllegalArgumentException("Invalid length " + length);
+            }
+            return (int) length;
+        }
+
+        String readString() {
+            int length = readLength();
+            String s = new String(data, position, length, UTF8);
+            position += length;
+            return s;
+        }
+
+        byte[] readBytes(int length) {
+            checkAvailable(length);
+            byte[] bytes = new byte[length];
+            System.arraycopy(data, position, bytes, 0, length);
+            position += length;
+            return bytes;
+        }
+
+        private void checkAvailable(int length) {
+            if (data.length - position < length) {
+                throw new IllegalArgumentException("Truncated value");
+            }
+        }
+    }
+}
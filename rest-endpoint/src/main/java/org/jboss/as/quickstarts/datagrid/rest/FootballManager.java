@@ -19,9 +19,12 @@ package org.jboss.as.quickstarts.datagrid.rest;
 import java.io.Console;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -33,6 +36,12 @@ public class FootballManager {
     // REST specific properties
     public static final String HTTP_PORT = "jdg.http.port";
     public static final String REST_CONTEXT_PATH = "jdg.rest.context.path";
+    public static final String REST_TRANSPORT = "jdg.rest.transport";
+    public static final String REST_MAX_CONNECTIONS = "jdg.rest.max.connections";
+    public static final String REST_PIPELINE_WINDOW = "jdg.rest.pipeline.window";
+    public static final String REST_SOCKET_TIMEOUT = "jdg.rest.socket.timeout";
+    public static final String VALUE_CODEC = "jdg.value.codec";
+    public static final String TEAMS_INDEX_SHARDS = "jdg.teams.index.shards";
 
     private static final String PROPERTIES_FILE = "jdg.properties";
     private static final String msgTeamMissing = "The specified team \"%s\" does not exist, choose next operation\n";
@@ -44,40 +53,36 @@ public class FootballManager {
 
     private Console con;
     private RESTCache<String, Object> cache;
+    private ShardedTeamIndex teams;
 
     public FootballManager(Console con) {
         this.con = con;
-        String contextPath = jdgProperty(REST_CONTEXT_PATH);
-        if (contextPath.length() > 0 && !contextPath.startsWith("/")) {
-            contextPath = "/" + contextPath;
+        cache = createCache();
+        teams = new ShardedTeamIndex(cache, teamsKey, teamsIndexShards());
+        @SuppressWarnings("unchecked")
+        List<String> legacyTeams = (List<String>) cache.get(teamsKey);
+        if (legacyTeams != null) {
+            // move the team list written by older versions of this quickstart into the index
+            for (String teamName : legacyTeams) {
+                teams.add(teamName);
+            }
+            cache.remove(teamsKey);
         }
-        cache = new RESTCache<String, Object>("teams", "http://" + jdgProperty(JDG_HOST) + ":" + jdgProperty(HTTP_PORT)
-                + contextPath + "/");
-        List<String> teams = (List<String>) cache.get(teamsKey);
-        if (teams == null) {
-            teams = new ArrayList<String>();
+        if (teams.getAll().isEmpty()) {
             Team t = new Team("Barcelona");
             t.addPlayer("Messi");
             t.addPlayer("Pedro");
             t.addPlayer("Puyol");
-            cache.put(t.getName(), t);
+            cache.put(encode(t.getName()), t);
             teams.add(t.getName());
         }
-        cache.put(teamsKey, teams);
     }
 
     public void addTeam() {
         String teamName = con.readLine(msgEnterTeamName);
-        @SuppressWarnings("unchecked")
-        List<String> teams = (List<String>) cache.get(encode(teamsKey));
-        if (teams == null) {
-            teams = new ArrayList<String>();
-        }
         Team t = new Team(teamName);
         cache.put(encode(teamName), t);
         teams.add(teamName);
-        // maintain a list of teams under common key
-        cache.put(teamsKey, teams);
     }
 
     public void addPlayers() {
@@ -111,23 +116,24 @@ public class FootballManager {
         Team t = (Team) cache.get(encode(teamName));
         if (t != null) {
             cache.remove(encode(teamName));
-            @SuppressWarnings("unchecked")
-            List<String> teams = (List<String>) cache.get(teamsKey);
-            if (teams != null) {
-                teams.remove(teamName);
-            }
-            cache.put(teamsKey, teams);
+            teams.remove(teamName);
         } else {
             con.printf(msgTeamMissing, teamName);
         }
     }
 
     public void printTeams() {
-        @SuppressWarnings("unchecked")
-        List<String> teams = (List<String>) cache.get(teamsKey);
-        if (teams != null) {
-            for (String teamName : teams) {
-                con.printf(cache.get(encode(teamName)).toString());
+        List<String> teamNames = teams.getAll();
+        List<String> keys = new ArrayList<String>(teamNames.size());
+        for (String teamName : teamNames) {
+            keys.add(encode(teamName));
+        }
+        // fetch all teams at once so the pooled transport can pipeline the requests
+        Map<String, Object> teamsByKey = cache.getAll(keys);
+        for (String key : keys) {
+            Object team = teamsByKey.get(key);
+            if (team != null) {
+                con.printf(team.toString());
             }
         }
     }
@@ -150,11 +156,56 @@ public class FootballManager {
             } else if ("p".equals(action)) {
                 manager.printTeams();
             } else if ("q".equals(action)) {
+                manager.stop();
                 break;
             }
         }
     }
 
+    public void stop() {
+        cache.close();
+    }
+
+    static RESTCache<String, Object> createCache() {
+        String contextPath = jdgProperty(REST_CONTEXT_PATH);
+        if (contextPath.length() > 0 && !contextPath.startsWith("/")) {
+            contextPath = "/" + contextPath;
+        }
+        String serverUrl = "http://" + jdgProperty(JDG_HOST) + ":" + jdgProperty(HTTP_PORT);
+        return new RESTCache<String, Object>("teams", serverUrl + contextPath + "/", createTransport(serverUrl),
+                createCodec());
+    }
+
+    static int teamsIndexShards() {
+        return intProperty(TEAMS_INDEX_SHARDS, 16);
+    }
+
+    private static RESTTransport createTransport(String serverUrl) {
+        String transport = jdgProperty(REST_TRANSPORT);
+        try {
+            URL url = new URL(serverUrl);
+            if ("url".equals(transport)) {
+                return new UrlConnectionTransport(url);
+            }
+            return new PooledHttpTransport(url, intProperty(REST_MAX_CONNECTIONS, 4), intProperty(REST_PIPELINE_WINDOW, 16),
+                    intProperty(REST_SOCKET_TIMEOUT, 30000));
+        } catch (MalformedURLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static ValueCodec createCodec() {
+        if ("base64".equals(jdgProperty(VALUE_CODEC))) {
+            return new Base64ValueCodec();
+        }
+        return new BinaryValueCodec();
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        String value = jdgProperty(name);
+        return value == null || value.trim().length() == 0 ? defaultValue : Integer.parseInt(value.trim());
+    }
+
     public static String jdgProperty(String name) {
         Properties props = new Properties();
         try {
@@ -0,0 +1,402 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.rest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An HTTP/1.1 transport that keeps a bounded pool of persistent connections to the REST server.
+ * <p>
+ * Connections are reused across requests instead of being opened and torn down for every cache operation. Requests passed
+ * to {@link #executeAll(List)} are pipelined: up to <code>pipelineWindow</code> requests are written to one connection
+ * before their responses are read back in order, so a group of N operations costs roughly N / window round trips.
+ * </p>
+ * <p>
+ * Idempotent requests (GET, HEAD, DELETE and a PUT without <code>If-Match</code>) that fail on a connection the server
+ * silently closed while it was idle are resent on a fresh connection. A POST or a conditional PUT may already have been
+ * applied when its connection failed, and sending it again would report its own write as a conflict, so it fails with
+ * an {@link IOException} instead. To keep that rare, an idle connection is checked before such a request is written to
+ * it, and discarded if the server has closed it.
+ * </p>
+ * 
+ */
+class PooledHttpTransport implements RESTTransport {
+
+    private static final String CHARSET = "ISO-8859-1";
+
+    private final String host;
+    private final int port;
+    private final int pipelineWindow;
+    private final int socketTimeout;
+    private final Semaphore connectionPermits;
+    private final BlockingQueue<HttpConnection> idleConnections = new LinkedBlockingQueue<HttpConnection>();
+    private volatile boolean closed;
+
+    /**
+     * @param serverUrl the server root, e.g. <code>http://localhost:8080</code>
+     * @param maxConnections the maximum number of connections open at the same time
+     * @param pipelineWindow the maximum number of requests in flight on a single connection
+     * @param socketTimeout the read timeout in milliseconds, 0 means no timeout
+     */
+    PooledHttpTransport(URL serverUrl, int maxConnections, int pipelineWindow, int socketTimeout) {
+        if (!"http".equals(serverUrl.getProtocol())) {
+            throw new IllegalArgumentException("Only plain http is supported by the pooled transport: " + serverUrl);
+        }
+        if (maxConnections < 1 || pipelineWindow < 1) {
+            throw new IllegalArgumentException("maxConnections and pipelineWindow must be positive");
+        }
+        this.host = serverUrl.getHost();
+        this.port = serverUrl.getPort() == -1 ? serverUrl.getDefaultPort() : serverUrl.getPort();
+        this.pipelineWindow = pipelineWindow;
+        this.socketTimeout = socketTimeout;
+        this.connectionPermits = new Semaphore(maxConnections);
+    }
+
+    @Override
+    public RESTResponse execute(RESTRequest request) throws IOException {
+        return executeAll(Collections.singletonList(request)).get(0);
+    }
+
+    @Override
+    public List<RESTResponse> executeAll(List<RESTRequest> requests) throws IOException {
+        List<RESTResponse> responses = new ArrayList<RESTResponse>(requests.size());
+        int next = 0;
+        while (next < requests.size()) {
+            int end = Math.min(next + pipelineWindow, requests.size());
+            boolean idempotent = isIdempotent(requests, next, end);
+            HttpConnection connection = acquire(!idempotent);
+            boolean reusable = false;
+            int received = 0;
+            try {
+                for (int i = next; i < end; i++) {
+                    connection.write(requests.get(i));
+                }
+                connection.flush();
+                reusable = true;
+                for (int i = next; i < end && reusable; i++) {
+                    responses.add(connection.read(requests.get(i).getMethod()));
+                    received++;
+                    reusable = connection.isReusable();
+                }
+                next += received;
+            } catch (IOException e) {
+                reusable = false;
+                next += received;
+                // a fresh connection that fails without any progress is a real error
+                if (received == 0 && !connection.isReused()) {
+                    throw e;
+                }
+                // the server may have applied the requests that were written but not answered
+                if (!isIdempotent(requests, next, end)) {
+                    throw e;
+                }
+            } finally {
+                release(connection, reusable);
+            }
+        }
+        return responses;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        HttpConnection connection;
+        while ((connection = idleConnections.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private static boolean isIdempotent(List<RESTRequest> requests, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!requests.get(i).isIdempotent()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param checkIdle whether an idle connection is checked for having been closed by the server before it is returned
+     */
+    private HttpConnection acquire(boolean checkIdle) throws IOException {
+        try {
+            while (true) {
+                if (closed) {
+                    throw new IOException("Transport has been closed");
+                }
+                HttpConnection connection = idleConnections.poll();
+                if (connection != null && checkIdle && connection.isStale()) {
+                    release(connection, false);
+                    continue;
+                }
+                if (connection != null) {
+                    return connection;
+                }
+                if (connectionPermits.tryAcquire()) {
+                    try {
+                        return new HttpConnection();
+                    } catch (IOException e) {
+                        connectionPermits.release();
+                        throw e;
+                    }
+                }
+                // the pool is exhausted, wait for another thread to return a connection
+                connection = idleConnections.poll(10, TimeUnit.MILLISECONDS);
+                if (connection != null && checkIdle && connection.isStale()) {
+                    release(connection, false);
+                } else if (connection != null) {
+                    return connection;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection");
+        }
+    }
+
+    private void release(HttpConnection connection, boolean reusable) {
+        if (reusable && !closed) {
+            connection.reused = true;
+            idleConnections.offer(connection);
+        } else {
+            connection.close();
+            connectionPermits.release();
+        }
+    }
+
+    /**
+     * A single persistent socket. Not thread safe, a connection is owned by one thread between acquire and release.
+     */
+    private final class HttpConnection {
+
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private boolean reused;
+        private boolean reusable = true;
+
+        HttpConnection() throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.setSoTimeout(socketTimeout);
+            socket.connect(new InetSocketAddress(host, port), socketTimeout);
+            in = new BufferedInputStream(socket.getInputStream(), 8 * 1024);
+            out = new BufferedOutputStream(socket.getOutputStream(), 8 * 1024);
+        }
+
+        boolean isReused() {
+            return reused;
+        }
+
+        boolean isReusable() {
+            return reusable;
+        }
+
+        /**
+         * Whether the server closed the connection, or sent something unexpected, while it was idle. Waits up to a
+         * millisecond for the server to do either.
+         */
+        boolean isStale() {
+            try {
+                if (in.available() > 0) {
+                    return true;
+                }
+                socket.setSoTimeout(1);
+                try {
+                    in.read();
+                    return true;
+                } catch (SocketTimeoutException e) {
+                    return false;
+                } finally {
+                    socket.setSoTimeout(socketTimeout);
+                }
+            } catch (IOException e) {
+                return true;
+            }
+        }
+
+        void write(RESTRequest request) throws IOException {
+            StringBuilder head = new StringBuilder(128);
+            head.append(request.getMethod()).append(' ').append(request.getPath()).append(" HTTP/1.1\r\n");
+            head.append("Host: ").append(host).append(':').append(port).append("\r\n");
+            if (request.getContentType() != null) {
+                head.append("Content-Type: ").append(request.getContentType()).append("\r\n");
+            }
+            if (request.getIfMatch() != null) {
+                head.append("If-Match: ").append(request.getIfMatch()).append("\r\n");
+            }
+            byte[] body = request.getBody();
+            if (body != null) {
+                head.append("Content-Length: ").append(body.length).append("\r\n");
+            }
+            head.append("\r\n");
+            out.write(head.toString().getBytes(CHARSET));
+            if (body != null) {
+                out.write(body);
+            }
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        RESTResponse read(String method) throws IOException {
+            String statusLine = readLine();
+            if (statusLine == null) {
+                throw new EOFException("Connection closed by server");
+            }
+            int space = statusLine.indexOf(' ');
+            if (space < 0 || statusLine.length() < space + 4) {
+                throw new IOException("Malformed status line: " + statusLine);
+            }
+            int status = Integer.parseInt(statusLine.substring(space + 1, space + 4));
+            boolean http10 = statusLine.startsWith("HTTP/1.0");
+
+            long contentLength = -1;
+            boolean chunked = false;
+            String contentType = null;
+            String etag = null;
+            String connectionHeader = null;
+            String line;
+            while ((line = readLine()) != null && line.length() > 0) {
+                int colon = line.indexOf(':');
+                if (colon < 0) {
+                    continue;
+                }
+                String name = line.substring(0, colon).trim();
+                String value = line.substring(colon + 1).trim();
+                if ("Content-Length".equalsIgnoreCase(name)) {
+                    contentLength = Long.parseLong(value);
+                } else if ("Transfer-Encoding".equalsIgnoreCase(name)) {
+                    chunked = value.toLowerCase().contains("chunked");
+                } else if ("Content-Type".equalsIgnoreCase(name)) {
+                    contentType = value;
+                } else if ("ETag".equalsIgnoreCase(name)) {
+                    etag = value;
+                } else if ("Connection".equalsIgnoreCase(name)) {
+                    connectionHeader = value;
+                }
+            }
+            if (line == null) {
+                throw new EOFException("Connection closed while reading headers");
+            }
+            reusable = http10 ? "keep-alive".equalsIgnoreCase(connectionHeader) : !"close".equalsIgnoreCase(connectionHeader);
+
+            byte[] body;
+            if ("HEAD".equals(method) || status / 100 == 1 || status == 204 || status == 304) {
+                body = null;
+            } else if (chunked) {
+                body = readChunked();
+            } else if (contentLength >= 0) {
+                body = readFully((int) contentLength);
+            } else {
+                // no framing information, the body is delimited by the server closing the connection
+                body = readToEnd();
+                reusable = false;
+            }
+            return new RESTResponse(status, body, contentType, etag);
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignore, the connection is being discarded
+            }
+        }
+
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') {
+                    break;
+                }
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+            if (b == -1 && line.size() == 0) {
+                return null;
+            }
+            return line.toString(CHARSET);
+        }
+
+        private byte[] readFully(int length) throws IOException {
+            byte[] data = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int read = in.read(data, offset, length - offset);
+                if (read == -1) {
+                    throw new EOFException("Connection closed after " + offset + " of " + length + " bytes");
+                }
+                offset += read;
+            }
+            return data;
+        }
+
+        private byte[] readChunked() throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            while (true) {
+                String sizeLine = readLine();
+                if (sizeLine == null) {
+                    throw new EOFException("Connection closed while reading chunk size");
+                }
+                int extension = sizeLine.indexOf(';');
+                int size = Integer.parseInt((extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+                if (size == 0) {
+                    // skip optional trailers
+                    String trailer;
+                    while ((trailer = readLine()) != null && trailer.length() > 0) {
+                    }
+                    return body.toByteArray();
+                }
+                body.write(readFully(size));
+                readLine();
+            }
+        }
+
+        private byte[] readToEnd() throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+            return body.toByteArray();
+        }
+    }
+}
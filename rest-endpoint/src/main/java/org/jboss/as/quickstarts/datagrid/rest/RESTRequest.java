@@ -0,0 +1,85 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.rest;
+
+/**
+ * A single HTTP request issued by {@link RESTCache}.
+ * 
+ */
+class RESTRequest {
+
+    static final String GET = "GET";
+    static final String PUT = "PUT";
+    static final String POST = "POST";
+    static final String DELETE = "DELETE";
+
+    private final String method;
+    private final String path;
+    private final byte[] body;
+    private final String contentType;
+    private String ifMatch;
+
+    RESTRequest(String method, String path) {
+        this(method, path, null, null);
+    }
+
+    RESTRequest(String method, String path, byte[] body, String contentType) {
+        this.method = method;
+        this.path = path;
+        this.body = body;
+        this.contentType = contentType;
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    /**
+     * The absolute request path including the REST context path, e.g. <code>/rest/teams/Barcelona</code>.
+     */
+    String getPath() {
+        return path;
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Makes the request conditional, the server only applies it if the entry still has the given entity tag.
+     */
+    RESTRequest withIfMatch(String etag) {
+        this.ifMatch = etag;
+        return this;
+    }
+
+    String getIfMatch() {
+        return ifMatch;
+    }
+
+    /**
+     * Whether sending the request twice has the same effect as sending it once. A POST fails the second time because
+     * the entry exists, and so does a PUT conditional on the entity tag it replaces.
+     */
+    boolean isIdempotent() {
+        return !POST.equals(method) && !(PUT.equals(method) && ifMatch != null);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.rest;
+
+/**
+ * A fully read HTTP response.
+ * 
+ */
+class RESTResponse {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int status;
+    private final byte[] body;
+    private final String contentType;
+    private final String etag;
+
+    RESTResponse(int status, byte[] body, String contentType, String etag) {
+        this.status = status;
+        this.body = body == null ? EMPTY : body;
+        this.contentType = contentType;
+        this.etag = etag;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    boolean isNotFound() {
+        return status == 404;
+    }
+
+    /**
+     * The entry was modified since the entity tag sent with a conditional request was read.
+     */
+    boolean isPreconditionFailed() {
+        return status == 412;
+    }
+
+    /**
+     * A POST was sent for a key that already exists.
+     */
+    boolean isConflict() {
+        return status == 409;
+    }
+
+    boolean isSuccess() {
+        return status >= 200 && status < 300;
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return the entity tag identifying the version of the returned entry, or <code>null</code>
+     */
+    String getETag() {
+        return etag;
+    }
+}
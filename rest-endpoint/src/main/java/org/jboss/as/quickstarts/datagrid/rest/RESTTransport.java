@@ -0,0 +1,43 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.rest;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The HTTP layer used by {@link RESTCache}. Implementations decide how connections are opened, kept alive and reused.
+ * 
+ */
+interface RESTTransport {
+
+    /**
+     * Executes a single request and returns the fully read response.
+     */
+    RESTResponse execute(RESTRequest request) throws IOException;
+
+    /**
+     * Executes a group of requests and returns the responses in the same order. Implementations may pipeline the requests
+     * over a shared connection.
+     */
+    List<RESTResponse> executeAll(List<RESTRequest> requests) throws IOException;
+
+    /**
+     * Releases all connections held by this transport.
+     */
+    void close();
+}
@@ -16,13 +16,13 @@
  */
 package org.jboss.as.quickstarts.datagrid.rest;
 
-import java.io.BufferedOutputStream;
-import java.io.FileNotFoundException;
-import java.io.InputStream;
-import java.io.Serializable;
-import java.net.HttpURLConnection;
+import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
@@ -34,50 +34,86 @@ import java.util.concurrent.ConcurrentMap;
  * 
  */
 class RESTCache<K, V> implements ConcurrentMap<K, V> {
+
+    // how many times putIfAbsent tries to add an entry that keeps being removed before giving up
+    private static final int MAX_PUT_IF_ABSENT_ATTEMPTS = 10;
+
     String cacheName;
     String basicUrl;
 
-    private static final String GET = "GET";
-    private static final String PUT = "PUT";
-    private static final String DELETE = "DELETE";
+    private final String basicPath;
+    private final RESTTransport transport;
+    private final ValueCodec codec;
+    private final ValueCodec fallbackCodec = new Base64ValueCodec();
 
     RESTCache(String cacheName, String restServerURL) {
+        this(cacheName, restServerURL, null, null);
+    }
+
+    /**
+     * @param transport the transport to send requests through, when <code>null</code> a new connection is opened for every
+     *        request
+     * @param codec the codec used to store values, when <code>null</code> values are stored as Base64 encoded Java
+     *        serialization
+     */
+    RESTCache(String cacheName, String restServerURL, RESTTransport transport, ValueCodec codec) {
         this.cacheName = cacheName;
+        this.codec = codec != null ? codec : fallbackCodec;
         this.basicUrl = restServerURL + cacheName;
+        try {
+            URL url = new URL(basicUrl);
+            this.basicPath = url.getPath();
+            this.transport = transport != null ? transport : new UrlConnectionTransport(new URL(url, "/"));
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
     }
 
-    private String doOperation(String method, String key, Object value) {
+    private RESTRequest newRequest(String method, String key, Object value) {
+        String path = key == null ? basicPath : basicPath + "/" + key;
+        if (value == null) {
+            return new RESTRequest(method, path);
+        }
+        return new RESTRequest(method, path, codec.encode(value), codec.getContentType());
+    }
+
+    private Object doOperation(String method, String key, Object value) {
+        return decode(execute(newRequest(method, key, value)));
+    }
+
+    private RESTResponse execute(RESTRequest request) {
         try {
-            URL url = key == null ? new URL(basicUrl) : new URL(basicUrl + "/" + key);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod(method);
-            connection.setRequestProperty("Content-Type", "text/plain");
-            int read = 0;
-            byte[] buffer = new byte[1024 * 8];
-
-            if (method.equals(PUT)) {
-                connection.setDoOutput(true);
-                String payload = Base64.encodeObject((Serializable) value);
-                BufferedOutputStream output = new BufferedOutputStream(connection.getOutputStream());
-                output.write(payload.getBytes());
-                output.close();
-            }
+            return transport.execute(request);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            connection.connect();
-            InputStream responseBodyStream = connection.getInputStream();
-            StringBuffer responseBody = new StringBuffer();
-            while ((read = responseBodyStream.read(buffer)) != -1) {
-                responseBody.append(new String(buffer, 0, read));
-            }
-            connection.disconnect();
-            String response = responseBody.toString();
-            return response;
-        } catch (FileNotFoundException fnfe) {
+    private Object decode(RESTResponse response) {
+        if (response.isNotFound()) {
             // Could be that the key being queried does not exist. Return null.
             return null;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
         }
+        if (!response.isSuccess()) {
+            throw new RuntimeException("REST server responded with status " + response.getStatus());
+        }
+        byte[] body = response.getBody();
+        if (body.length == 0) {
+            return null;
+        }
+        // the server returns the MIME type an entry was stored with, entries written as Base64 can still be read
+        String contentType = response.getContentType();
+        if (contentType != null && contentType.startsWith(codec.getContentType())) {
+            return codec.decode(body);
+        }
+        return fallbackCodec.decode(body);
+    }
+
+    /**
+     * Releases the connections held by the underlying transport.
+     */
+    void close() {
+        transport.close();
     }
 
     private String toStringKey(Object key) {
@@ -108,39 +144,52 @@ class RESTCache<K, V> implements ConcurrentMap<K, V> {
         throw new UnsupportedOperationException("Unsupported");
     }
 
-    private Object decode(String s) {
-        if (s == null || s.length() == 0) {
-            return null;
-        } else {
-            Object o = Base64.decodeToObject(s);
-            return o;
-        }
-    }
-
     @Override
     @SuppressWarnings("unchecked")
     public V get(Object key) {
         String stringKey = toStringKey(key);
-        String stringValue = doOperation(GET, stringKey, null);
-        return (V) decode(stringValue);
+        return (V) doOperation(RESTRequest.GET, stringKey, null);
+    }
+
+    /**
+     * Retrieves several entries at once. Depending on the transport the GET requests are pipelined over a shared
+     * connection. Keys that are not present in the cache are not present in the returned map.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        List<K> keyList = new ArrayList<K>(keys);
+        List<RESTRequest> requests = new ArrayList<RESTRequest>(keyList.size());
+        for (K key : keyList) {
+            requests.add(newRequest(RESTRequest.GET, toStringKey(key), null));
+        }
+        List<RESTResponse> responses;
+        try {
+            responses = transport.executeAll(requests);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        Map<K, V> result = new HashMap<K, V>();
+        for (int i = 0; i < keyList.size(); i++) {
+            V value = (V) decode(responses.get(i));
+            if (value != null) {
+                result.put(keyList.get(i), value);
+            }
+        }
+        return result;
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public V put(K key, V value) {
         String stringKey = toStringKey(key);
-        String stringValue = doOperation(PUT, stringKey, value);
-
-        return (V) decode(stringValue);
+        return (V) doOperation(RESTRequest.PUT, stringKey, value);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public V remove(Object key) {
         String stringKey = toStringKey(key);
-        String stringValue = doOperation(DELETE, stringKey, null);
-
-        return (V) decode(stringValue);
+        return (V) doOperation(RESTRequest.DELETE, stringKey, null);
     }
 
     @Override
@@ -168,9 +217,56 @@ class RESTCache<K, V> implements ConcurrentMap<K, V> {
         throw new UnsupportedOperationException("Unsupported");
     }
 
+    /**
+     * Uses POST, which the REST server rejects with 409 Conflict if the key already exists. If the existing entry is
+     * removed before it can be read, the value is posted again, at most {@value #MAX_PUT_IF_ABSENT_ATTEMPTS} times.
+     */
     @Override
+    @SuppressWarnings("unchecked")
     public V putIfAbsent(K key, V value) {
-        throw new UnsupportedOperationException("Unsupported");
+        String stringKey = toStringKey(key);
+        for (int attempt = 0; attempt < MAX_PUT_IF_ABSENT_ATTEMPTS; attempt++) {
+            RESTResponse response = execute(newRequest(RESTRequest.POST, stringKey, value));
+            if (!response.isConflict()) {
+                decode(response);
+                return null;
+            }
+            response = execute(newRequest(RESTRequest.GET, stringKey, null));
+            if (!response.isNotFound()) {
+                // the existing entry, even if its value is null
+                return (V) decode(response);
+            }
+            // the existing entry was removed in the meantime, try to add again
+        }
+        throw new RuntimeException("putIfAbsent() gave up after " + MAX_PUT_IF_ABSENT_ATTEMPTS
+                + " attempts, the entry kept being removed");
+    }
+
+    /**
+     * Returns the value together with the entity tag the server returned for it, or <code>null</code> if there is no such
+     * entry.
+     */
+    @SuppressWarnings("unchecked")
+    public VersionedValue<V> getVersioned(K key) {
+        RESTResponse response = execute(newRequest(RESTRequest.GET, toStringKey(key), null));
+        V value = (V) decode(response);
+        return value == null ? null : new VersionedValue<V>(value, response.getETag());
+    }
+
+    /**
+     * Stores the value with an <code>If-Match</code> condition, so it is only written if the entry has not been modified
+     * since it was read by {@link #getVersioned(Object)}.
+     */
+    public boolean replaceWithVersion(K key, V value, String version) {
+        if (version == null) {
+            throw new IllegalArgumentException("The REST server did not return an ETag for " + key);
+        }
+        RESTResponse response = execute(newRequest(RESTRequest.PUT, toStringKey(key), value).withIfMatch(version));
+        if (response.isPreconditionFailed() || response.isNotFound()) {
+            return false;
+        }
+        decode(response);
+        return true;
     }
 
     @Override
@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.rest;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opens a new {@link HttpURLConnection} for every request and disconnects it afterwards. This is the simplest possible
+ * transport and the one this quickstart originally used.
+ * 
+ */
+class UrlConnectionTransport implements RESTTransport {
+
+    private final URL serverUrl;
+
+    /**
+     * @param serverUrl the server root, e.g. <code>http://localhost:8080</code>
+     */
+    UrlConnectionTransport(URL serverUrl) {
+        this.serverUrl = serverUrl;
+    }
+
+    @Override
+    public RESTResponse execute(RESTRequest request) throws IOException {
+        URL url = new URL(serverUrl, request.getPath());
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod(request.getMethod());
+            connection.setRequestProperty("Content-Type",
+                    request.getContentType() == null ? "text/plain" : request.getContentType());
+            if (request.getIfMatch() != null) {
+                connection.setRequestProperty("If-Match", request.getIfMatch());
+            }
+
+            if (request.getBody() != null) {
+                connection.setDoOutput(true);
+                BufferedOutputStream output = new BufferedOutputStream(connection.getOutputStream());
+                output.write(request.getBody());
+                output.close();
+            }
+
+            connection.connect();
+            int status = connection.getResponseCode();
+            if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                // e.g. the key being queried does not exist or a conditional request was rejected
+                return new RESTResponse(status, null, null, null);
+            }
+            InputStream responseBodyStream = connection.getInputStream();
+            ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024 * 8];
+            int read = 0;
+            while ((read = responseBodyStream.read(buffer)) != -1) {
+                responseBody.write(buffer, 0, read);
+            }
+            responseBodyStream.close();
+            return new RESTResponse(status, responseBody.toByteArray(), connection.getContentType(),
+                    connection.getHeaderField("ETag"));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public List<RESTResponse> executeAll(List<RESTRequest> requests) throws IOException {
+        List<RESTResponse> responses = new ArrayList<RESTResponse>(requests.size());
+        for (RESTRequest request : requests) {
+            responses.add(execute(request));
+        }
+        return responses;
+    }
+
+    @Override
+    public void close() {
+        // nothing is kept open between requests
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Compares the per-request {@link UrlConnectionTransport} with the {@link PooledHttpTransport} against a local stub REST
+ * server, so the numbers reflect the client side connection handling only.
+ * <p>
+ * Every transport is run with every codec; to compare the transports with the default codec only, run:
+ * <code>mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test -Dexec.args="-cp %classpath org.openjdk.jmh.Main RESTCacheBenchmark -p codec=binary"</code>
+ * </p>
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RESTCacheBenchmark {
+
+    private static final int KEYS = 64;
+
+    @Param({ "url", "pooled" })
+    public String transport;
+
+    @Param({ "base64", "binary" })
+    public String codec;
+
+    @Param({ "16" })
+    public int batchSize;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private RESTCache<String, Object> cache;
+    private List<String> batch;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/rest/", new StubRestHandler());
+        serverExecutor = Executors.newFixedThreadPool(8);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        URL serverUrl = new URL("http://127.0.0.1:" + server.getAddress().getPort());
+        RESTTransport restTransport = "pooled".equals(transport) ? new PooledHttpTransport(serverUrl, 4, batchSize, 30000)
+                : new UrlConnectionTransport(serverUrl);
+        cache = new RESTCache<String, Object>("teams", serverUrl + "/rest/", restTransport,
+                "binary".equals(codec) ? new BinaryValueCodec() : new Base64ValueCodec());
+
+        batch = new ArrayList<String>(batchSize);
+        for (int i = 0; i < KEYS; i++) {
+            Team team = new Team("team" + i);
+            team.addPlayer("player" + i);
+            cache.put(team.getName(), team);
+            if (i < batchSize) {
+                batch.add(team.getName());
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public Object get() {
+        next = (next + 1) % KEYS;
+        return cache.get("team" + next);
+    }
+
+    @Benchmark
+    public Object put() {
+        next = (next + 1) % KEYS;
+        Team team = new Team("team" + next);
+        team.addPlayer("player" + next);
+        return cache.put(team.getName(), team);
+    }
+
+    @Benchmark
+    public Object getAll() {
+        return cache.getAll(batch);
+    }
+
+    /**
+     * Mimics the JDG REST endpoint: GET returns the stored body with the MIME type it was stored under or 404, PUT stores the
+     * body and DELETE removes it.
+     */
+    private static class StubRestHandler implements HttpHandler {
+
+        private final ConcurrentMap<String, byte[]> data = new ConcurrentHashMap<String, byte[]>();
+        private final ConcurrentMap<String, String> contentTypes = new ConcurrentHashMap<String, String>();
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String key = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            byte[] requestBody = readFully(exchange.getRequestBody());
+            byte[] responseBody;
+            if ("GET".equals(method)) {
+                responseBody = data.get(key);
+                String contentType = contentTypes.get(key);
+                if (contentType != null) {
+                    exchange.getResponseHeaders().set("Content-Type", contentType);
+                }
+            } else if ("PUT".equals(method)) {
+                String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                contentTypes.put(key, contentType == null ? "text/plain" : contentType);
+                data.put(key, requestBody);
+                responseBody = new byte[0];
+            } else {
+                data.remove(key);
+                contentTypes.remove(key);
+                responseBody = new byte[0];
+            }
+            if (responseBody == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, responseBody.length == 0 ? -1 : responseBody.length);
+                exchange.getResponseBody().write(responseBody);
+            }
+            exchange.close();
+        }
+
+        private static byte[] readFully(InputStream in) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
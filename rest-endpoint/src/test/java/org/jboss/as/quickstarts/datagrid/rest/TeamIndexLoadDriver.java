@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.datagrid.rest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Adds and then removes team names through the {@link ShardedTeamIndex} from several threads sharing one
+ * {@link RESTCache}, and verifies that no update was lost to a concurrent <code>If-Match</code> PUT on the same bucket.
+ * The buckets are written under a key prefix of their own, and removed when the run ends.
+ * <p>
+ * Run with <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.jboss.as.quickstarts.datagrid.rest.TeamIndexLoadDriver
+ * -Dexec.args="threads teamsPerThread shards"</code>.
+ * With a single shard every update competes for the same bucket, like the old shared list key did.
+ * </p>
+ * 
+ */
+public class TeamIndexLoadDriver {
+
+    public static void main(String[] args) throws Exception {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        final int teamsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 250;
+        int shards = args.length > 2 ? Integer.parseInt(args[2]) : FootballManager.teamsIndexShards();
+
+        RESTCache<String, Object> cache = FootballManager.createCache();
+        final String prefix = "loadtest" + System.currentTimeMillis();
+        ShardedTeamIndex index = new ShardedTeamIndex(cache, prefix, shards);
+
+        int lost = 0;
+        int remaining;
+        try {
+            System.out.printf("%d threads x %d teams, %d shards%n", threads, teamsPerThread, shards);
+            long elapsed = run(index, threads, teamsPerThread, prefix, true);
+            Set<String> stored = new HashSet<String>(index.getAll());
+            for (int t = 0; t < threads; t++) {
+                for (int i = 0; i < teamsPerThread; i++) {
+                    if (!stored.contains(teamName(prefix, t, i))) {
+                        lost++;
+                    }
+                }
+            }
+            report("add", threads * teamsPerThread, elapsed);
+            System.out.printf("lost additions: %d%n", lost);
+
+            elapsed = run(index, threads, teamsPerThread, prefix, false);
+            remaining = index.getAll().size();
+            report("remove", threads * teamsPerThread, elapsed);
+            System.out.printf("lost removals: %d%n", remaining);
+        } finally {
+            index.clear();
+            cache.close();
+        }
+        System.exit(lost == 0 && remaining == 0 ? 0 : 1);
+    }
+
+    private static long run(final ShardedTeamIndex index, int threads, final int teamsPerThread, final String prefix,
+            final boolean add) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> results = new ArrayList<Future<Void>>(threads);
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            results.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    for (int i = 0; i < teamsPerThread; i++) {
+                        if (add) {
+                            index.add(teamName(prefix, thread, i));
+                        } else {
+                            index.remove(teamName(prefix, thread, i));
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<Void> result : results) {
+            result.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private static String teamName(String prefix, int thread, int i) {
+        return prefix + "-" + thread + "-" + i;
+    }
+
+    private static void report(String operation, int count, long elapsedNanos) {
+        System.out.printf("%s: %d updates in %d ms, %.0f updates/s%n", operation, count, elapsedNanos / 1000000,
+                count * 1e9 / elapsedNanos);
+    }
+}
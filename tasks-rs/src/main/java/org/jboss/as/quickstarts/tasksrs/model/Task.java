@@ -19,7 +19,7 @@ package org.jboss.as.quickstarts.tasksrs.model;
 // JSON: uncomment to include json support (note json is not part of the JAX-RS standard)
 //import org.codehaus.jackson.annotate.JsonIgnore;
 
-import static javax.persistence.GenerationType.IDENTITY;
+import static javax.persistence.GenerationType.SEQUENCE;
 
 import java.io.Serializable;
 import java.io.StringReader;
@@ -28,6 +28,7 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.xml.bind.JAXB;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -48,8 +49,10 @@ import javax.xml.bind.annotation.XmlTransient;
 @XmlRootElement(name = "task")
 public class Task implements Serializable {
 
+    // ids are taken from a sequence 50 at a time, rather than generated by the insert, so that inserts can be batched
     @Id
-    @GeneratedValue(strategy = IDENTITY)
+    @GeneratedValue(strategy = SEQUENCE, generator = "task_seq")
+    @SequenceGenerator(name = "task_seq", sequenceName = "task_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -31,11 +31,32 @@ public interface TaskDao {
 
     void createTask(User user, Task task);
 
+    /**
+     * Creates all the tasks for the user in a single transaction.
+     */
+    void createTasks(User user, List<Task> tasks);
+
     List<Task> getAll(User user);
 
+    /**
+     * Returns the task with the given id if it belongs to the user, null otherwise.
+     */
+    Task getById(User user, Long id);
+
+    /**
+     * Opens a cursor over all the tasks of the user, for lists too long to be read at once. The cursor must be closed.
+     */
+    TaskCursor openAll(User user);
+
     List<Task> getRange(User user, int offset, int count);
 
     List<Task> getForTitle(User user, String title);
 
     void deleteTask(Task task);
+
+    /**
+     * Deletes the tasks of the user with the given ids in a single transaction. The ids of tasks that do not exist, or
+     * belong to another user, are ignored. Returns the number of tasks deleted.
+     */
+    int deleteTasks(User user, List<Long> ids);
 }
@@ -16,13 +16,20 @@
  */
 package org.jboss.as.quickstarts.tasksrs.model;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.ejb.Stateful;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 
+import org.hibernate.ScrollMode;
+import org.hibernate.Session;
+
 /**
  * Provides functionality for manipulation with tasks using the persistence context from {@link Resources}.
  *
@@ -33,17 +40,48 @@ import javax.persistence.TypedQuery;
 @Stateful
 public class TaskDaoImpl implements TaskDao {
 
+    // the number of tasks read by id from the database with a single query
+    static final int IDS_PER_QUERY = 500;
+
+    // the number of tasks created before they are flushed to the database as one JDBC batch, see persistence.xml
+    static final int FLUSH_INTERVAL = 50;
+
     @Inject
     private EntityManager em;
 
+    @Inject
+    private TaskTitleIndex titleIndex;
+
+    @Inject
+    private Event<TaskTitleIndex.Change> taskChanges;
+
     @Override
     public void createTask(User user, Task task) {
         if (!em.contains(user)) {
-            user = em.merge(user);
+            // a user that exists already is referenced by id rather than merged, which would read all its tasks
+            user = user.getId() == null ? em.merge(user) : em.getReference(User.class, user.getId());
         }
         user.getTasks().add(task);
         task.setOwner(user);
         em.persist(task);
+        taskChanges.fire(TaskTitleIndex.Change.created(task));
+    }
+
+    @Override
+    public void createTasks(User user, List<Task> tasks) {
+        User owner = user.getId() == null ? em.merge(user) : user;
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            task.setId(null);
+            task.setOwner(owner);
+            em.persist(task);
+            taskChanges.fire(TaskTitleIndex.Change.created(task));
+            if ((i + 1) % FLUSH_INTERVAL == 0) {
+                // the tasks created so far are not needed any more
+                em.flush();
+                em.clear();
+            }
+        }
     }
 
     @Override
@@ -52,6 +90,23 @@ public class TaskDaoImpl implements TaskDao {
         return query.getResultList();
     }
 
+    @Override
+    public Task getById(User user, Long id) {
+        // looked up by primary key, the owner only decides whether the task is returned
+        List<Task> tasks = em.createQuery("SELECT t FROM Task t WHERE t.id = ? AND t.owner = ?", Task.class)
+                .setParameter(1, id).setParameter(2, user).getResultList();
+        return tasks.isEmpty() ? null : tasks.get(0);
+    }
+
+    // the cursor is read after this method returns, so the results are not tied to a transaction that ends here
+    @Override
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public TaskCursor openAll(User user) {
+        return new TaskCursor(em, em.unwrap(Session.class).createQuery("SELECT t FROM Task t WHERE t.owner = :owner")
+                .setEntity("owner", user).setReadOnly(true).setFetchSize(TaskCursor.CLEAR_INTERVAL)
+                .scroll(ScrollMode.FORWARD_ONLY));
+    }
+
     @Override
     public List<Task> getRange(User user, int offset, int count) {
         TypedQuery<Task> query = querySelectAllTasksFromUser(user);
@@ -60,11 +115,30 @@ public class TaskDaoImpl implements TaskDao {
         return query.getResultList();
     }
 
+    /**
+     * Finds the tasks with the {@link TaskTitleIndex}. The first search of a user reads the ids and titles of the
+     * user's tasks to index them; while they are being indexed by another request, the tasks are searched in the
+     * database.
+     */
     @Override
     public List<Task> getForTitle(User user, String title) {
-        String lowerCaseTitle = "%" + title.toLowerCase() + "%";
-        return em.createQuery("SELECT t FROM Task t WHERE t.owner = ? AND LOWER(t.title) LIKE ?", Task.class)
-                .setParameter(1, user).setParameter(2, lowerCaseTitle).getResultList();
+        List<Long> ids = titleIndex.search(user.getId(), title);
+        if (ids == null) {
+            if (!titleIndex.startLoading(user.getId())) {
+                return queryForTitle(user, title);
+            }
+            try {
+                titleIndex.finishLoading(user.getId(),
+                        em.createQuery("SELECT t.id, t.title FROM Task t WHERE t.owner = ?", Object[].class)
+                                .setParameter(1, user).getResultList());
+            } catch (RuntimeException e) {
+                titleIndex.abandonLoading(user.getId());
+                throw e;
+            }
+            ids = titleIndex.search(user.getId(), title);
+        }
+        // tasks deleted since they were indexed are not found
+        return getByIds(user, ids);
     }
 
     @Override
@@ -73,6 +147,37 @@ public class TaskDaoImpl implements TaskDao {
             task = em.merge(task);
         }
         em.remove(task);
+        taskChanges.fire(TaskTitleIndex.Change.deleted(task));
+    }
+
+    @Override
+    public int deleteTasks(User user, List<Long> ids) {
+        List<Task> tasks = getByIds(user, ids);
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            em.remove(task);
+            taskChanges.fire(TaskTitleIndex.Change.deleted(task));
+            if ((i + 1) % FLUSH_INTERVAL == 0) {
+                em.flush();
+            }
+        }
+        return tasks.size();
+    }
+
+    private List<Task> getByIds(User user, List<Long> ids) {
+        List<Task> tasks = new ArrayList<Task>(ids.size());
+        for (int i = 0; i < ids.size(); i += IDS_PER_QUERY) {
+            tasks.addAll(em.createQuery("SELECT t FROM Task t WHERE t.owner = :owner AND t.id IN (:ids)", Task.class)
+                    .setParameter("owner", user).setParameter("ids", ids.subList(i, Math.min(i + IDS_PER_QUERY,
+                            ids.size()))).getResultList());
+        }
+        return tasks;
+    }
+
+    private List<Task> queryForTitle(User user, String title) {
+        String lowerCaseTitle = "%" + title.toLowerCase() + "%";
+        return em.createQuery("SELECT t FROM Task t WHERE t.owner = ? AND LOWER(t.title) LIKE ?", Task.class)
+                .setParameter(1, user).setParameter(2, lowerCaseTitle).getResultList();
     }
 
     private TypedQuery<Task> querySelectAllTasksFromUser(User user) {
@@ -0,0 +1,294 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.tasksrs.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+
+/**
+ * An in-memory index of the task titles of each user, for case-insensitive searches by part of the title that do not
+ * scan the tasks table. Every title is split into its trigrams (the lower case substrings of three characters), and
+ * for each trigram the index keeps the ids of the tasks whose title contains it. A search looks up the trigrams of the
+ * searched text, intersects their tasks and checks the titles of the tasks left.
+ * <p/>
+ * The tasks of a user are indexed the first time the user searches, see {@link TaskDaoImpl#getForTitle(User, String)};
+ * until then the user's index is cold and searches go to the database. Tasks created or deleted afterwards are added
+ * to, or removed from, the index once their transaction has committed. The index may hold tasks deleted while it was
+ * being loaded, so the tasks it finds are read from the database by id, which leaves them out.
+ * <p/>
+ * The index of an owner that has not searched for {@value #IDLE_MINUTES} minutes is dropped, and at most
+ * {@value #MAX_OWNERS} owners are indexed at once; when there are more, the least recently used indexes are dropped.
+ * An owner whose index was dropped is cold again, and indexed anew by its next search.
+ */
+@ApplicationScoped
+public class TaskTitleIndex {
+
+    static final int GRAM_LENGTH = 3;
+
+    public static final int MAX_OWNERS = 1000;
+
+    public static final int IDLE_MINUTES = 30;
+
+    private final ConcurrentMap<Long, OwnerIndex> owners = new ConcurrentHashMap<Long, OwnerIndex>();
+
+    /**
+     * Returns the ids of the tasks of the owner whose title contains the given text, ignoring case, or null if the
+     * owner's tasks have not been indexed yet.
+     */
+    public List<Long> search(Long ownerId, String title) {
+        OwnerIndex index = owners.get(ownerId);
+        if (index == null || !index.loaded) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (index.isIdle(now)) {
+            owners.remove(ownerId, index);
+            return null;
+        }
+        index.lastUsed = now;
+        return index.search(title.toLowerCase());
+    }
+
+    /**
+     * Starts indexing the tasks of the owner. Returns false if they are indexed already, or being indexed by another
+     * request, otherwise the caller must follow with {@link #finishLoading(Long, List)} or
+     * {@link #abandonLoading(Long)}.
+     */
+    public boolean startLoading(Long ownerId) {
+        if (owners.size() >= MAX_OWNERS) {
+            evict();
+        }
+        return owners.putIfAbsent(ownerId, new OwnerIndex()) == null;
+    }
+
+    /**
+     * Adds the tasks of the owner, read from the database as <code>{id, title}</code> rows, and makes the index of the
+     * owner available to searches.
+     */
+    public void finishLoading(Long ownerId, List<Object[]> tasks) {
+        OwnerIndex index = owners.get(ownerId);
+        if (index == null) {
+            // dropped while it was loading, the owner is cold again
+            return;
+        }
+        for (Object[] task : tasks) {
+            index.add((Long) task[0], (String) task[1]);
+        }
+        index.loaded = true;
+    }
+
+    /**
+     * Removes what was indexed of the tasks of the owner, after they could not be read.
+     */
+    public void abandonLoading(Long ownerId) {
+        owners.remove(ownerId);
+    }
+
+    public void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) Change change) {
+        // the tasks of an owner that is not indexed are read when it is
+        OwnerIndex index = owners.get(change.ownerId);
+        if (index != null) {
+            if (change.deleted) {
+                index.remove(change.taskId);
+            } else {
+                index.add(change.taskId, change.title);
+            }
+        }
+    }
+
+    // drops the idle indexes, or the least recently used tenth of them if none is idle, to make room for a new one;
+    // indexes still loading are left alone
+    private void evict() {
+        long now = System.currentTimeMillis();
+        List<Map.Entry<Long, OwnerIndex>> loaded = new ArrayList<Map.Entry<Long, OwnerIndex>>();
+        int removed = 0;
+        for (Map.Entry<Long, OwnerIndex> entry : owners.entrySet()) {
+            OwnerIndex index = entry.getValue();
+            if (index.loaded && index.isIdle(now)) {
+                if (owners.remove(entry.getKey(), index)) {
+                    removed++;
+                }
+            } else if (index.loaded) {
+                loaded.add(entry);
+            }
+        }
+        if (removed > 0) {
+            return;
+        }
+        Collections.sort(loaded, new Comparator<Map.Entry<Long, OwnerIndex>>() {
+            public int compare(Map.Entry<Long, OwnerIndex> a, Map.Entry<Long, OwnerIndex> b) {
+                long x = a.getValue().lastUsed;
+                long y = b.getValue().lastUsed;
+                return x < y ? -1 : (x == y ? 0 : 1);
+            }
+        });
+        for (int i = 0; i < loaded.size() && i < MAX_OWNERS / 10; i++) {
+            owners.remove(loaded.get(i).getKey(), loaded.get(i).getValue());
+        }
+    }
+
+    static Set<String> grams(String lowerCaseText) {
+        Set<String> grams = new HashSet<String>();
+        for (int i = 0; i + GRAM_LENGTH <= lowerCaseText.length(); i++) {
+            grams.add(lowerCaseText.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * A task created or deleted, fired by {@link TaskDaoImpl} and applied to the index when the transaction commits.
+     */
+    public static final class Change {
+
+        private final Long ownerId;
+
+        private final Long taskId;
+
+        private final String title;
+
+        private final boolean deleted;
+
+        private Change(Task task, boolean deleted) {
+            this.ownerId = task.getOwner().getId();
+            this.taskId = task.getId();
+            this.title = task.getTitle();
+            this.deleted = deleted;
+        }
+
+        static Change created(Task task) {
+            return new Change(task, false);
+        }
+
+        static Change deleted(Task task) {
+            return new Change(task, true);
+        }
+    }
+
+    /**
+     * The titles of the tasks of one owner and their trigrams. Searches share the lock, changes take it exclusively.
+     */
+    private static class OwnerIndex {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private final Map<Long, String> titles = new HashMap<Long, String>();
+
+        private final Map<String, Set<Long>> postings = new HashMap<String, Set<Long>>();
+
+        private volatile boolean loaded;
+
+        // when the owner last searched, idle indexes are dropped
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        boolean isIdle(long now) {
+            return now - lastUsed >= TimeUnit.MINUTES.toMillis(IDLE_MINUTES);
+        }
+
+        void add(Long taskId, String title) {
+            // a task without a title is never found
+            if (title == null) {
+                return;
+            }
+            String lowerCaseTitle = title.toLowerCase();
+            lock.writeLock().lock();
+            try {
+                if (titles.put(taskId, lowerCaseTitle) != null) {
+                    return;
+                }
+                for (String gram : grams(lowerCaseTitle)) {
+                    Set<Long> taskIds = postings.get(gram);
+                    if (taskIds == null) {
+                        taskIds = new HashSet<Long>();
+                        postings.put(gram, taskIds);
+                    }
+                    taskIds.add(taskId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long taskId) {
+            lock.writeLock().lock();
+            try {
+                String lowerCaseTitle = titles.remove(taskId);
+                if (lowerCaseTitle == null) {
+                    return;
+                }
+                for (String gram : grams(lowerCaseTitle)) {
+                    Set<Long> taskIds = postings.get(gram);
+                    taskIds.remove(taskId);
+                    if (taskIds.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<Long> search(String lowerCaseText) {
+            lock.readLock().lock();
+            try {
+                List<Long> found = new ArrayList<Long>();
+                for (Long taskId : candidates(lowerCaseText)) {
+                    if (titles.get(taskId).contains(lowerCaseText)) {
+                        found.add(taskId);
+                    }
+                }
+                return found;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // the tasks whose title contains every trigram of the text, or all of them for a text shorter than a trigram
+        private Set<Long> candidates(String lowerCaseText) {
+            Set<String> grams = grams(lowerCaseText);
+            if (grams.isEmpty()) {
+                return titles.keySet();
+            }
+            Set<Long> smallest = null;
+            for (String gram : grams) {
+                Set<Long> taskIds = postings.get(gram);
+                if (taskIds == null) {
+                    return Collections.emptySet();
+                }
+                if (smallest == null || taskIds.size() < smallest.size()) {
+                    smallest = taskIds;
+                }
+            }
+            // the titles of the tasks of the smallest posting list are checked for the whole text
+            return smallest;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.tasksrs.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Remembers the id of the {@link org.jboss.as.quickstarts.tasksrs.model.User} of each principal, so that a request does
+ * not have to look the user up by name. At most {@value #MAX_ENTRIES} principals are kept, each for
+ * {@value #TTL_MINUTES} minutes after it was looked up.
+ * <p/>
+ * A principal seen for the first time is looked up, and created, while holding the lock returned by
+ * {@link #lockFor(String)}, so that two concurrent first requests of the same principal create a single user. The
+ * principals are spread over {@value #LOCK_STRIPES} locks, requests of other principals are rarely held up.
+ */
+@ApplicationScoped
+public class PrincipalCache {
+
+    public static final int MAX_ENTRIES = 10000;
+
+    public static final int TTL_MINUTES = 10;
+
+    static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public PrincipalCache() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Returns the id of the user of the principal, or null if it is not cached or has expired.
+     */
+    public Long getUserId(String principal) {
+        Entry entry = entries.get(principal);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(currentTimeMillis())) {
+            entries.remove(principal, entry);
+            return null;
+        }
+        return entry.userId;
+    }
+
+    public void putUserId(String principal, Long userId) {
+        if (entries.size() >= MAX_ENTRIES) {
+            evict();
+        }
+        entries.put(principal, new Entry(userId, currentTimeMillis() + TimeUnit.MINUTES.toMillis(TTL_MINUTES)));
+    }
+
+    /**
+     * Forgets the user of the principal, for example after the user has been removed.
+     */
+    public void invalidate(String principal) {
+        entries.remove(principal);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the lock to hold while looking up, and if needed creating, the user of the principal.
+     */
+    public Object lockFor(String principal) {
+        return locks[(principal.hashCode() & Integer.MAX_VALUE) % locks.length];
+    }
+
+    // the clock of the expiry times, which the tests replace
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    // removes the expired entries, or some others if none has expired, to make room for a new one
+    private void evict() {
+        long now = currentTimeMillis();
+        int removed = 0;
+        for (Iterator<Map.Entry<String, Entry>> i = entries.entrySet().iterator(); i.hasNext();) {
+            if (i.next().getValue().isExpired(now)) {
+                i.remove();
+                removed++;
+            }
+        }
+        for (Iterator<String> i = entries.keySet().iterator(); removed < MAX_ENTRIES / 10 && i.hasNext(); removed++) {
+            i.next();
+            i.remove();
+        }
+    }
+
+    private static class Entry {
+
+        private final Long userId;
+
+        private final long expires;
+
+        Entry(Long userId, long expires) {
+            this.userId = userId;
+            this.expires = expires;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expires;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.tasksrs.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jboss.as.quickstarts.tasksrs.model.Task;
+import org.jboss.as.quickstarts.tasksrs.model.TaskCursor;
+import org.jboss.as.quickstarts.tasksrs.model.TaskDao;
+import org.jboss.as.quickstarts.tasksrs.model.User;
+
+/**
+ * Writes all the tasks of a user as XML while they are read from the database, so the whole list is never held in
+ * memory, however many tasks there are. The document has the same <code>collection</code> root element as a list of
+ * tasks written by JAX-RS.
+ */
+public class TaskListOutput implements StreamingOutput {
+
+    private static final JAXBContext CONTEXT;
+
+    static {
+        try {
+            CONTEXT = JAXBContext.newInstance(Task.class);
+        } catch (JAXBException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final TaskDao taskDao;
+
+    private final User user;
+
+    public TaskListOutput(TaskDao taskDao, User user) {
+        this.taskDao = taskDao;
+        this.user = user;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        TaskCursor tasks = taskDao.openAll(user);
+        try {
+            Marshaller marshaller = CONTEXT.createMarshaller();
+            // every task is written as an element of the collection rather than as a document of its own
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+            XMLStreamWriter out = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+            out.writeStartDocument("UTF-8", "1.0");
+            out.writeStartElement("collection");
+            while (tasks.hasNext()) {
+                marshaller.marshal(tasks.next(), out);
+            }
+            out.writeEndElement();
+            out.writeEndDocument();
+            out.flush();
+        } catch (JAXBException e) {
+            throw new WebApplicationException(e);
+        } catch (XMLStreamException e) {
+            throw new WebApplicationException(e);
+        } finally {
+            tasks.close();
+        }
+    }
+}
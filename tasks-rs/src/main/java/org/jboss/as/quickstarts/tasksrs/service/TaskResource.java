@@ -18,9 +18,11 @@ package org.jboss.as.quickstarts.tasksrs.service;
 
 import java.net.URI;
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.inject.Inject;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
@@ -28,10 +30,12 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
@@ -45,12 +49,20 @@ import org.jboss.as.quickstarts.tasksrs.model.UserDao;
  */
 @Path("/")
 public class TaskResource {
+    /**
+     * The largest number of tasks created or deleted with a single request, larger batches are rejected as bad requests
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+
     @Inject
     private UserDao userDao;
 
     @Inject
     private TaskDao taskDao;
 
+    @Inject
+    private PrincipalCache principals;
+
     @POST
     @Path("tasks/{title}")
     public Response createTask(@Context UriInfo info, @Context SecurityContext context,
@@ -70,6 +82,40 @@ public class TaskResource {
         return Response.created(uri).build();
     }
 
+    /**
+     * Creates all the tasks of a <code>collection</code> document, at most {@link #MAX_BATCH_SIZE}, in a single
+     * transaction, and returns them with their ids.
+     */
+    @POST
+    @Path("tasks")
+    @Consumes({ "application/xml" })
+    @Produces({ "application/xml" })
+    public List<Task> createTasks(@Context SecurityContext context, List<Task> tasks) {
+        // checked before the user is looked up, a rejected request creates no user either
+        if (tasks.size() > MAX_BATCH_SIZE)
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+
+        User user = getUser(context);
+
+        taskDao.createTasks(user, tasks);
+
+        return tasks;
+    }
+
+    /**
+     * Deletes the tasks whose ids are given as comma separated values, or repeated parameters, at most
+     * {@link #MAX_BATCH_SIZE}, in a single transaction. Tasks that do not exist, or belong to another user, are left
+     * out.
+     */
+    @DELETE
+    @Path("tasks")
+    public void deleteTasksById(@Context SecurityContext context, @QueryParam("ids") List<String> ids) {
+        List<Long> taskIds = parseIds(ids);
+        User user = getUser(context);
+
+        taskDao.deleteTasks(user, taskIds);
+    }
+
     @DELETE
     @Path("tasks/{id}")
     public void deleteTaskById(@Context SecurityContext context, @PathParam("id") Long id) {
@@ -100,11 +146,10 @@ public class TaskResource {
 
     @GET
     @Path("tasks")
-    // JSON: include "application/json" in the @Produces annotation to include json support
-    //@Produces({ "application/xml", "application/json" })
+    // the tasks are written as XML while they are read, see TaskListOutput
     @Produces({ "application/xml" })
-    public List<Task> getTasks(@Context SecurityContext context) {
-        return getTasks(getUser(context));
+    public StreamingOutput getTasks(@Context SecurityContext context) {
+        return new TaskListOutput(taskDao, getUser(context));
     }
 
 
@@ -114,16 +159,31 @@ public class TaskResource {
         return taskDao.getForTitle(user, title);
     }
 
-    private List<Task> getTasks(User user) {
-        return taskDao.getAll(user);
+    private List<Long> parseIds(List<String> values) {
+        List<Long> ids = new ArrayList<Long>();
+
+        try {
+            for (String value : values)
+                for (String id : value.split(","))
+                    if (id.trim().length() > 0)
+                        ids.add(Long.valueOf(id.trim()));
+        } catch (NumberFormatException e) {
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+        }
+
+        if (ids.size() > MAX_BATCH_SIZE)
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+
+        return ids;
     }
 
     private Task getTask(User user, Long id) {
-        for (Task task : taskDao.getAll(user))
-            if (task.getId().equals(id))
-                return task;
+        Task task = taskDao.getById(user, id);
 
-        throw new WebApplicationException(Response.Status.NOT_FOUND);
+        if (task == null)
+            throw new WebApplicationException(Response.Status.NOT_FOUND);
+
+        return task;
     }
 
     private User getUser(SecurityContext context) {
@@ -138,7 +198,28 @@ public class TaskResource {
         return getUser(principal.getName());
     }
 
+    // the user is only read from the database the first time the principal is seen, or after it has expired from the
+    // cache, otherwise a detached user with the cached id is returned
     private User getUser(String username) {
+        Long id = principals.getUserId(username);
+
+        if (id == null) {
+            synchronized (principals.lockFor(username)) {
+                id = principals.getUserId(username);
+
+                if (id == null) {
+                    id = findOrCreateUser(username).getId();
+                    principals.putUserId(username, id);
+                }
+            }
+        }
+
+        User user = new User(username);
+        user.setId(id);
+        return user;
+    }
+
+    private User findOrCreateUser(String username) {
 
         try {
             User user = userDao.getForUsername(username);
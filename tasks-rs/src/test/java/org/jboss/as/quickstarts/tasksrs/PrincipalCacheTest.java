@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.tasksrs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.quickstarts.tasksrs.service.PrincipalCache;
+import org.junit.Test;
+
+/**
+ * A plain unit test, {@link PrincipalCache} needs no container. The cache is given a clock that the tests move on.
+ */
+public class PrincipalCacheTest {
+
+    private static final long TTL_MILLIS = TimeUnit.MINUTES.toMillis(PrincipalCache.TTL_MINUTES);
+
+    private long now = 1000000L;
+
+    private final PrincipalCache cache = new PrincipalCache() {
+        @Override
+        protected long currentTimeMillis() {
+            return now;
+        }
+    };
+
+    @Test
+    public void user_id_should_be_kept_until_it_expires() {
+        // given
+        cache.putUserId("jdoe", 1L);
+
+        // when
+        now += TTL_MILLIS - 1;
+
+        // then
+        assertEquals(Long.valueOf(1L), cache.getUserId("jdoe"));
+
+        // when
+        now += 1;
+
+        // then
+        assertNull(cache.getUserId("jdoe"));
+    }
+
+    @Test
+    public void full_cache_should_evict_expired_principals_first() {
+        // given
+        int half = PrincipalCache.MAX_ENTRIES / 2;
+        for (int i = 0; i < half; i++) {
+            cache.putUserId("old" + i, (long) i);
+        }
+        now += TTL_MILLIS / 2;
+        for (int i = 0; i < PrincipalCache.MAX_ENTRIES - half; i++) {
+            cache.putUserId("new" + i, (long) i);
+        }
+        now += TTL_MILLIS / 2;
+
+        // when
+        cache.putUserId("jdoe", 1L);
+
+        // then
+        assertEquals(Long.valueOf(1L), cache.getUserId("jdoe"));
+        for (int i = 0; i < PrincipalCache.MAX_ENTRIES - half; i++) {
+            assertEquals(Long.valueOf(i), cache.getUserId("new" + i));
+        }
+    }
+
+    @Test
+    public void full_cache_should_evict_some_principals_when_none_has_expired() {
+        // given
+        for (int i = 0; i < PrincipalCache.MAX_ENTRIES; i++) {
+            cache.putUserId("user" + i, (long) i);
+        }
+
+        // when
+        cache.putUserId("jdoe", 1L);
+
+        // then
+        assertEquals(Long.valueOf(1L), cache.getUserId("jdoe"));
+        int kept = 0;
+        for (int i = 0; i < PrincipalCache.MAX_ENTRIES; i++) {
+            if (cache.getUserId("user" + i) != null) {
+                kept++;
+            }
+        }
+        assertTrue("kept " + kept, kept < PrincipalCache.MAX_ENTRIES);
+        assertTrue("kept " + kept, kept >= PrincipalCache.MAX_ENTRIES - PrincipalCache.MAX_ENTRIES / 10);
+    }
+}
@@ -17,9 +17,12 @@
 package org.jboss.as.quickstarts.tasksrs;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -43,7 +46,8 @@ public class TaskDaoTest {
     @Deployment
     public static WebArchive deployment() throws IllegalArgumentException, FileNotFoundException {
         return new DefaultDeployment().withPersistence().withImportedData().getArchive()
-                .addClasses(Resources.class, User.class, UserDao.class, Task.class, TaskDao.class, TaskDaoImpl.class);
+                .addClasses(Resources.class, User.class, UserDao.class, Task.class, TaskDao.class, TaskDaoImpl.class,
+                        TaskCursor.class, TaskTitleIndex.class);
     }
 
     @Inject
@@ -86,6 +90,40 @@ public class TaskDaoTest {
         assertEquals(2, userTasks.size());
     }
 
+    @Test
+    public void all_tasks_should_be_iterated_by_cursor_from_detachedUser() {
+        // when
+        TaskCursor userTasks = taskDao.openAll(detachedUser);
+        int count = 0;
+        try {
+            while (userTasks.hasNext()) {
+                assertNotNull(userTasks.next().getTitle());
+                count++;
+            }
+        } finally {
+            userTasks.close();
+        }
+
+        // then
+        assertEquals(2, count);
+    }
+
+    @Test
+    public void task_should_be_obtained_by_id_only_from_its_owner() {
+        // given
+        User otherUser = new User("emuster");
+        otherUser.setId(2L);
+
+        // when
+        Task task = taskDao.getById(detachedUser, 2L);
+        Task otherUsersTask = taskDao.getById(otherUser, 2L);
+
+        // then
+        assertNotNull(task);
+        assertTrue(task.getTitle().contains("second"));
+        assertNull(otherUsersTask);
+    }
+
     @Test
     public void range_of_tasks_should_be_provided_by_taskDao() {
         // when
@@ -112,6 +150,52 @@ public class TaskDaoTest {
         assertTrue(titledTasks.get(0).getTitle().contains("first"));
     }
 
+    @Test
+    public void title_search_should_follow_created_and_deleted_tasks() {
+        // given
+        assertEquals(1, taskDao.getForTitle(detachedUser, "second").size());
+        Task task = new Task("johns third task");
+        taskDao.createTask(detachedUser, task);
+
+        // when
+        List<Task> createdTasks = taskDao.getForTitle(detachedUser, "THIRD");
+        taskDao.deleteTask(task);
+        List<Task> deletedTasks = taskDao.getForTitle(detachedUser, "third");
+
+        // then
+        assertEquals(1, createdTasks.size());
+        assertEquals(task, createdTasks.get(0));
+        assertTrue(deletedTasks.isEmpty());
+    }
+
+    @Test
+    public void tasks_should_be_created_and_deleted_in_batches() {
+        // given
+        User otherUser = new User("emuster");
+        otherUser.setId(2L);
+        List<Task> tasks = new ArrayList<Task>();
+        for (int i = 0; i < 120; i++) {
+            tasks.add(new Task("batch task " + i));
+        }
+
+        // when
+        taskDao.createTasks(otherUser, tasks);
+        List<Long> ids = new ArrayList<Long>();
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        int createdTasks = taskDao.getAll(otherUser).size();
+        // the task of another user is left alone
+        ids.add(2L);
+        int deletedTasks = taskDao.deleteTasks(otherUser, ids);
+
+        // then
+        assertEquals(120, createdTasks);
+        assertEquals(120, deletedTasks);
+        assertTrue(taskDao.getAll(otherUser).isEmpty());
+        assertNotNull(taskDao.getById(detachedUser, 2L));
+    }
+
     @Test
     public void taskDao_should_remove_task_from_detachedUser() {
         // given
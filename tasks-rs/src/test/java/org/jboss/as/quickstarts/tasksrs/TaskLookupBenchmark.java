@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.tasksrs;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * Measures how long it takes to get one task by id as the number of tasks of the user grows. The tasks are created
+ * through the REST service, ten times as many at every step, and after each step random tasks are read. The time per
+ * read should not depend on the number of tasks. Run it against a deployed application:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.jboss.as.quickstarts.tasksrs.TaskLookupBenchmark \
+ *     -Dexec.args="http://localhost:8080/jboss-as-tasks-rs quickstartUser quickstartPwd1! 10000"
+ * </pre>
+ *
+ * The arguments are the URL of the application, the user name and password and the number of tasks to end with.
+ * The tasks are left in place, the user should not have any beforehand.
+ */
+public class TaskLookupBenchmark {
+
+    private static final int READS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8080/jboss-as-tasks-rs";
+        String username = args.length > 1 ? args[1] : "quickstartUser";
+        String password = args.length > 2 ? args[2] : "quickstartPwd1!";
+        int maxTasks = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+        String authorization = "Basic "
+                + DatatypeConverter.printBase64Binary((username + ":" + password).getBytes("UTF-8"));
+
+        List<String> tasks = new ArrayList<String>();
+        Random random = new Random();
+        for (int count = 10; count <= maxTasks; count *= 10) {
+            while (tasks.size() < count) {
+                tasks.add(send(url + "/tasks/task" + tasks.size(), "POST", authorization, "Location"));
+            }
+            // warm up before measuring
+            for (int i = 0; i < READS / 10; i++) {
+                send(tasks.get(random.nextInt(tasks.size())), "GET", authorization, null);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < READS; i++) {
+                send(tasks.get(random.nextInt(tasks.size())), "GET", authorization, null);
+            }
+            long micros = (System.nanoTime() - start) / 1000 / READS;
+            System.out.println(count + " tasks: " + micros + " us per task read by id");
+        }
+    }
+
+    // sends the request and returns the given header of the response
+    private static String send(String url, String method, String authorization, String header) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Authorization", authorization);
+        connection.setRequestProperty("Accept", "application/xml");
+        if ("POST".equals(method)) {
+            // an empty body, the title of the task is in the URL
+            connection.setDoOutput(true);
+            connection.getOutputStream().close();
+        }
+        int status = connection.getResponseCode();
+        if (status >= 400) {
+            throw new IllegalStateException(method + " " + url + " returned " + status);
+        }
+        // read the response so that the connection can be reused
+        InputStream in = connection.getInputStream();
+        byte[] buffer = new byte[1024];
+        while (in.read(buffer) >= 0) {
+        }
+        in.close();
+        return header == null ? null : connection.getHeaderField(header);
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.as.quickstarts.tasksrs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.FileNotFoundException;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.as.quickstarts.tasksrs.model.Resources;
+import org.jboss.as.quickstarts.tasksrs.model.Task;
+import org.jboss.as.quickstarts.tasksrs.model.TaskCursor;
+import org.jboss.as.quickstarts.tasksrs.model.TaskDao;
+import org.jboss.as.quickstarts.tasksrs.model.TaskDaoImpl;
+import org.jboss.as.quickstarts.tasksrs.model.TaskTitleIndex;
+import org.jboss.as.quickstarts.tasksrs.model.User;
+import org.jboss.as.quickstarts.tasksrs.model.UserDao;
+import org.jboss.as.quickstarts.tasksrs.model.UserDaoImpl;
+import org.jboss.as.quickstarts.tasksrs.service.PrincipalCache;
+import org.jboss.as.quickstarts.tasksrs.service.TaskListOutput;
+import org.jboss.as.quickstarts.tasksrs.service.TaskResource;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Checks the batch endpoints of {@link TaskResource}, called directly rather than over HTTP.
+ */
+@RunWith(Arquillian.class)
+public class TaskResourceTest {
+
+    @Deployment
+    public static WebArchive deployment() throws IllegalArgumentException, FileNotFoundException {
+        return new DefaultDeployment().withPersistence().withImportedData().getArchive()
+                .addClasses(Resources.class, User.class, UserDao.class, UserDaoImpl.class, Task.class, TaskDao.class,
+                        TaskDaoImpl.class, TaskCursor.class, TaskTitleIndex.class, PrincipalCache.class,
+                        TaskListOutput.class, TaskResource.class);
+    }
+
+    @Inject
+    private TaskResource taskResource;
+
+    @Inject
+    private TaskDao taskDao;
+
+    @Inject
+    private UserDao userDao;
+
+    @Inject
+    private EntityManager em;
+
+    @Test
+    public void tasks_should_be_created_with_their_ids() {
+        // given
+        List<Task> tasks = tasks(3);
+
+        // when
+        List<Task> created = taskResource.createTasks(securityContext("jdoe"), tasks);
+
+        // then
+        assertEquals(3, created.size());
+        for (Task task : created) {
+            assertNotNull(task.getId());
+        }
+    }
+
+    @Test
+    public void batch_larger_than_the_maximum_should_be_rejected() {
+        // given
+        User user = new User("jdoe");
+        user.setId(1L);
+        int tasksBefore = taskDao.getAll(user).size();
+
+        // when
+        try {
+            taskResource.createTasks(securityContext("jdoe"), tasks(TaskResource.MAX_BATCH_SIZE + 1));
+            fail("The batch should be rejected");
+        } catch (WebApplicationException e) {
+            // then
+            assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), e.getResponse().getStatus());
+        }
+        assertEquals(tasksBefore, taskDao.getAll(user).size());
+    }
+
+    @Test
+    public void rejected_batch_should_not_create_the_user() {
+        // when
+        try {
+            taskResource.createTasks(securityContext("newcomer"), tasks(TaskResource.MAX_BATCH_SIZE + 1));
+            fail("The batch should be rejected");
+        } catch (WebApplicationException e) {
+            assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), e.getResponse().getStatus());
+        }
+
+        // then
+        assertNull(userDao.getForUsername("newcomer"));
+    }
+
+    @Test
+    public void own_tasks_should_be_deleted_by_id() {
+        // given
+        List<Task> created = taskResource.createTasks(securityContext("jdoe"), tasks(3));
+
+        // when
+        taskResource.deleteTasksById(securityContext("jdoe"),
+                Arrays.asList(created.get(0).getId() + "," + created.get(1).getId()));
+
+        // then
+        assertNotFound("jdoe", created.get(0).getId());
+        assertNotFound("jdoe", created.get(1).getId());
+        assertNotNull(taskResource.getTaskById(securityContext("jdoe"), created.get(2).getId()));
+    }
+
+    @Test
+    public void tasks_of_another_user_should_not_be_deleted() {
+        // given
+        List<Task> created = taskResource.createTasks(securityContext("emuster"), tasks(1));
+        Long id = created.get(0).getId();
+
+        // when
+        taskResource.deleteTasksById(securityContext("jdoe"), Arrays.asList(id.toString()));
+
+        // then
+        assertNotNull(taskResource.getTaskById(securityContext("emuster"), id));
+    }
+
+    @Test
+    public void empty_id_list_should_delete_nothing() {
+        // given
+        User user = new User("jdoe");
+        user.setId(1L);
+        int tasksBefore = taskDao.getAll(user).size();
+
+        // when
+        taskResource.deleteTasksById(securityContext("jdoe"), Collections.<String> emptyList());
+        taskResource.deleteTasksById(securityContext("jdoe"), Arrays.asList(""));
+
+        // then
+        assertEquals(tasksBefore, taskDao.getAll(user).size());
+    }
+
+    @Test
+    public void id_list_larger_than_the_maximum_should_be_rejected() {
+        // given
+        List<Task> created = taskResource.createTasks(securityContext("jdoe"), tasks(1));
+        List<String> ids = new ArrayList<String>();
+        ids.add(created.get(0).getId().toString());
+        for (int i = 0; i < TaskResource.MAX_BATCH_SIZE; i++) {
+            ids.add(Long.toString(-1 - i));
+        }
+
+        // when
+        try {
+            taskResource.deleteTasksById(securityContext("jdoe"), ids);
+            fail("The ids should be rejected");
+        } catch (WebApplicationException e) {
+            // then
+            assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), e.getResponse().getStatus());
+        }
+        assertNotNull(taskResource.getTaskById(securityContext("jdoe"), created.get(0).getId()));
+    }
+
+    @Test
+    public void concurrent_first_requests_of_a_principal_should_create_one_user() throws Exception {
+        // given
+        final SecurityContext context = securityContext("firsttimer");
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<StreamingOutput>> requests = new ArrayList<Future<StreamingOutput>>();
+        for (int i = 0; i < 8; i++) {
+            requests.add(executor.submit(new Callable<StreamingOutput>() {
+                public StreamingOutput call() throws Exception {
+                    start.await();
+                    return taskResource.getTasks(context);
+                }
+            }));
+        }
+
+        // when
+        start.countDown();
+        try {
+            for (Future<StreamingOutput> request : requests) {
+                request.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // then
+        assertEquals(1, em.createQuery("select u from User u where u.username = ?", User.class)
+                .setParameter(1, "firsttimer").getResultList().size());
+    }
+
+    private void assertNotFound(String username, Long id) {
+        try {
+            taskResource.getTaskById(securityContext(username), id);
+            fail("Task " + id + " should not be found");
+        } catch (WebApplicationException e) {
+            assertEquals(Response.Status.NOT_FOUND.getStatusCode(), e.getResponse().getStatus());
+        }
+    }
+
+    private static List<Task> tasks(int count) {
+        List<Task> tasks = new ArrayList<Task>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(new Task("resource task " + i));
+        }
+        return tasks;
+    }
+
+    private static SecurityContext securityContext(final String username) {
+        return new SecurityContext() {
+            public Principal getUserPrincipal() {
+                return new Principal() {
+                    public String getName() {
+                        return username;
+                    }
+                };
+            }
+
+            public boolean isUserInRole(String role) {
+                return false;
+            }
+
+            public boolean isSecure() {
+                return false;
+            }
+
+            public String getAuthenticationScheme() {
+                return SecurityContext.BASIC_AUTH;
+            }
+        };
+    }
+}
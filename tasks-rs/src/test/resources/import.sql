@@ -23,4 +23,5 @@ COMMIT
 BEGIN
 INSERT INTO Task (ID, OWNER_ID, TITLE) VALUES (1, 1, 'johns first task');
 INSERT INTO Task (ID, OWNER_ID, TITLE) VALUES (2, 1, 'johns second task');
+ALTER SEQUENCE task_seq RESTART WITH 1000;
 COMMIT
\ No newline at end of file